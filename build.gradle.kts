@@ -22,6 +22,27 @@ repositories {
 
 val jerseyVersion = "2.28"
 val junitJupiterVersion = "5.4.1"
+val jmhVersion = "1.23"
+val java21Home: String? by project
+
+sourceSets {
+    create("java21") {
+        java.setSrcDirs(listOf("src/main/java21"))
+    }
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output + sourceSets["test"].output
+        runtimeClasspath += sourceSets["main"].output + sourceSets["test"].output
+    }
+}
+
+configurations {
+    "jmhImplementation" {
+        extendsFrom(configurations.testImplementation.get())
+    }
+    "jmhRuntimeOnly" {
+        extendsFrom(configurations.testRuntimeOnly.get())
+    }
+}
 
 jacoco {
     toolVersion = "0.8.2"
@@ -49,6 +70,36 @@ tasks {
         dependsOn(jacocoTestReport)
     }
 
+    named<JavaCompile>("compileJava21Java") {
+        description = "Compiles the classes used on Java 21 and later, using the JDK given by the java21Home property."
+        onlyIf { java21Home != null }
+        sourceCompatibility = "21"
+        targetCompatibility = "21"
+        options.isFork = true
+        options.forkOptions.javaHome = java21Home?.let { file(it) }
+    }
+
+    jar {
+        manifest {
+            attributes("Multi-Release" to "true")
+        }
+        into("META-INF/versions/21") {
+            from(sourceSets["java21"].output)
+        }
+    }
+
+    register<JavaExec>("jmh") {
+        description = "Runs the JMH benchmarks, profiling time and allocations per operation."
+        group = "verification"
+        val results = file("$buildDir/reports/jmh/results.json")
+        classpath = sourceSets["jmh"].runtimeClasspath
+        main = "org.openjdk.jmh.Main"
+        args("-prof", "gc", "-rf", "json", "-rff", results.path)
+        doFirst {
+            results.parentFile.mkdirs()
+        }
+    }
+
     withType<Wrapper> {
         gradleVersion = "6.0.1"
     }
@@ -57,11 +108,19 @@ tasks {
 dependencies {
     compileOnly("org.junit.jupiter:junit-jupiter-api:$junitJupiterVersion")
     compileOnly("org.glassfish.jersey.test-framework:jersey-test-framework-core:$jerseyVersion")
+    compileOnly("org.glassfish.jersey.test-framework.providers:jersey-test-framework-provider-grizzly2:$jerseyVersion")
+    compileOnly("org.glassfish.jersey.test-framework.providers:jersey-test-framework-provider-inmemory:$jerseyVersion")
+    compileOnly("org.glassfish.jersey.connectors:jersey-apache-connector:$jerseyVersion")
 
     testImplementation("org.junit.jupiter:junit-jupiter-engine:$junitJupiterVersion")
 
     testImplementation("org.glassfish.jersey.test-framework.providers:jersey-test-framework-provider-grizzly2:$jerseyVersion")
+    testImplementation("org.glassfish.jersey.test-framework.providers:jersey-test-framework-provider-inmemory:$jerseyVersion")
+    testImplementation("org.glassfish.jersey.connectors:jersey-apache-connector:$jerseyVersion")
     testImplementation("org.glassfish.jersey.inject:jersey-hk2:$jerseyVersion")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
 }
 
 publishing {
@@ -0,0 +1,50 @@
+package com.github.hanleyt;
+
+import org.junit.jupiter.api.extension.ParameterContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+class BenchmarkParameterContext implements ParameterContext {
+
+    private final Parameter parameter;
+
+    BenchmarkParameterContext(Parameter parameter) {
+        this.parameter = parameter;
+    }
+
+    @Override
+    public Parameter getParameter() {
+        return parameter;
+    }
+
+    @Override
+    public int getIndex() {
+        return Arrays.asList(parameter.getDeclaringExecutable().getParameters()).indexOf(parameter);
+    }
+
+    @Override
+    public Optional<Object> getTarget() {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isAnnotated(Class<? extends Annotation> annotationType) {
+        return parameter.isAnnotationPresent(annotationType);
+    }
+
+    @Override
+    public <A extends Annotation> Optional<A> findAnnotation(Class<A> annotationType) {
+        return Optional.ofNullable(parameter.getAnnotation(annotationType));
+    }
+
+    @Override
+    public <A extends Annotation> List<A> findRepeatableAnnotations(Class<A> annotationType) {
+        return Collections.unmodifiableList(Arrays.asList(parameter.getAnnotationsByType(annotationType)));
+    }
+
+}
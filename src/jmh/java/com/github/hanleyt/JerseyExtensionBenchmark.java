@@ -0,0 +1,110 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.glassfish.jersey.test.grizzly.GrizzlyWebTestContainerFactory;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.client.WebTarget;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the extension itself for each kind of deployment. Run with {@code ./gradlew jmh},
+ * which also profiles allocations per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JerseyExtensionBenchmark {
+
+    @Param({"grizzly", "in-memory", "servlet"})
+    String deployment;
+
+    private JerseyExtension jerseyExtension;
+    private ExtensionContext startedContext;
+    private WebTarget target;
+    private ParameterContext webTargetParameter;
+
+    @Setup
+    public void setUp() throws Exception {
+        jerseyExtension = createExtension(deployment);
+        startedContext = new DummyExtensionContext();
+        jerseyExtension.beforeEach(startedContext);
+        target = jerseyExtension.getStore(startedContext).get(WebTarget.class, WebTarget.class).path("values");
+        webTargetParameter = new BenchmarkParameterContext(JerseyExtensionBenchmark.class
+                .getDeclaredMethod("webTargetParameter", WebTarget.class).getParameters()[0]);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jerseyExtension.afterEach(startedContext);
+    }
+
+    @Benchmark
+    public void beforeEachAndAfterEach() throws Exception {
+        ExtensionContext context = new DummyExtensionContext();
+        jerseyExtension.beforeEach(context);
+        jerseyExtension.afterEach(context);
+    }
+
+    @Benchmark
+    public Object parameterResolution() {
+        if (!jerseyExtension.supportsParameter(webTargetParameter, startedContext)) {
+            throw new IllegalStateException("WebTarget parameters must be supported");
+        }
+        return jerseyExtension.resolveParameter(webTargetParameter, startedContext);
+    }
+
+    @Benchmark
+    public String requestRoundTrip() {
+        return target.request().get(String.class);
+    }
+
+    private static JerseyExtension createExtension(String deployment) {
+        switch (deployment) {
+            case "grizzly":
+                return JerseyExtension.builder()
+                        .application(() -> new ResourceConfig(DummyResource.class))
+                        .build();
+            case "in-memory":
+                return JerseyExtension.builder()
+                        .application(() -> new ResourceConfig(DummyResource.class))
+                        .inMemory()
+                        .build();
+            case "servlet":
+                return JerseyExtension.builder()
+                        .testContainerFactory((context) -> new GrizzlyWebTestContainerFactory())
+                        .deploymentContext((context) -> {
+                            ResourceConfig resourceConfig = new ResourceConfig(DummyResource.class);
+                            return ServletDeploymentContext.builder(resourceConfig)
+                                    .servlet(new ServletContainer(resourceConfig))
+                                    .build();
+                        })
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown deployment " + deployment);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static void webTargetParameter(WebTarget target) {
+    }
+
+}
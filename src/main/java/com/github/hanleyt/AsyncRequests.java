@@ -0,0 +1,71 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.client.CompletionStageRxInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Sends requests to the deployed application without blocking the calling thread, so that a single test can have
+ * many requests in flight at once. Requests run on the executor of the injected Client, which can be configured with
+ * {@link JerseyExtension.Builder#asyncExecutor}. Injected by {@link JerseyExtension} as a test method parameter.
+ *
+ * <pre>{@code
+ * List<CompletionStage<String>> responses = new ArrayList<>();
+ * for (int i = 0; i < 500; i++) {
+ *     responses.add(asyncRequests.get("values", String.class));
+ * }
+ * List<String> values = AsyncRequests.allOf(responses).toCompletableFuture().get();
+ * }</pre>
+ */
+public final class AsyncRequests {
+
+    private final WebTarget target;
+
+    AsyncRequests(WebTarget target) {
+        this.target = target;
+    }
+
+    /**
+     * Returns a reactive invoker for the given path, relative to the base URI of the deployed application.
+     */
+    public CompletionStageRxInvoker rx(String path) {
+        return target.path(path).request().rx();
+    }
+
+    public CompletionStage<Response> get(String path) {
+        return rx(path).get();
+    }
+
+    public <T> CompletionStage<T> get(String path, Class<T> responseType) {
+        return rx(path).get(responseType);
+    }
+
+    public CompletionStage<Response> post(String path, Entity<?> entity) {
+        return rx(path).post(entity);
+    }
+
+    public CompletionStage<Response> method(String path, String name, Entity<?> entity) {
+        return rx(path).method(name, entity);
+    }
+
+    /**
+     * Returns a stage that completes with the results of all the given stages, in order, once all have completed.
+     * It completes exceptionally if any of them does.
+     */
+    public static <T> CompletionStage<List<T>> allOf(Collection<? extends CompletionStage<T>> stages) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(stages.size());
+        stages.forEach(stage -> futures.add(stage.toCompletableFuture()));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(unused -> {
+            List<T> results = new ArrayList<>(futures.size());
+            futures.forEach(future -> results.add(future.join()));
+            return results;
+        });
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a test once in a container started by each of the given factories, in place of the factory configured on
+ * {@link JerseyExtension}, and publishes the time each run took as report entries, side by side once every
+ * container has been run. Each run gets a container of its own, whatever the container scope of the extension.
+ *
+ * <pre>{@code
+ * @CompareContainers({GrizzlyTestContainerFactory.class, JdkHttpServerTestContainerFactory.class})
+ * void values_are_returned(LoadDriver loadDriver) throws InterruptedException {
+ *     ...
+ * }
+ * }</pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@TestTemplate
+@ExtendWith(ContainerComparison.class)
+public @interface CompareContainers {
+
+    /**
+     * The factories of the compared containers, each created with its no-argument constructor.
+     */
+    Class<? extends TestContainerFactory>[] value();
+
+}
@@ -0,0 +1,33 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.message.GZipEncoder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.filter.EncodingFilter;
+
+/**
+ * Compresses entities with gzip in both directions: the deployed application compresses responses to clients that
+ * accept gzip and decompresses gzipped requests, and the client compresses request entities and accepts gzipped
+ * responses.
+ */
+final class Compression {
+
+    private Compression() {
+    }
+
+    static void enable(ResourceConfig resourceConfig) {
+        synchronized (resourceConfig) {
+            if (!resourceConfig.isRegistered(EncodingFilter.class)) {
+                EncodingFilter.enableFor(resourceConfig, GZipEncoder.class);
+            }
+        }
+    }
+
+    static void enable(ClientConfig config) {
+        config.register(org.glassfish.jersey.client.filter.EncodingFilter.class);
+        config.register(GZipEncoder.class);
+        config.property(ClientProperties.USE_ENCODING, "gzip");
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContextProvider;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.ReflectionSupport;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Provides a run of a {@link CompareContainers} test for each compared container factory, and times the runs.
+ * The factory of each run is put in the store of the run by an extension of the run itself, so that
+ * {@link JerseyExtension} can find it however it was registered. That extension is an execution condition, since
+ * conditions are evaluated before any before each callback, including those of extensions registered on the class.
+ * <p>
+ * A run is timed from before the container is started to after it is stopped when the extension is registered on
+ * the test instance, and the test method alone is timed as well.
+ */
+class ContainerComparison implements TestTemplateInvocationContextProvider, BeforeEachCallback, AfterEachCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(ContainerComparison.class);
+    private static final String START_KEY = "start";
+    private static final String TEST_START_KEY = "testStart";
+    private static final String TEST_NANOS_KEY = "testNanos";
+
+    /**
+     * Returns the container factory of the current run of a {@link CompareContainers} test, if it is one.
+     */
+    static Optional<TestContainerFactory> getTestContainerFactory(ExtensionContext context) {
+        return Optional.ofNullable(context.getStore(NAMESPACE).get(TestContainerFactory.class, TestContainerFactory.class));
+    }
+
+    private static Optional<Comparison> getComparison(ExtensionContext context) {
+        return context.getParent().map(parent -> parent.getStore(NAMESPACE).get(Comparison.class, Comparison.class));
+    }
+
+    @Override
+    public boolean supportsTestTemplate(ExtensionContext context) {
+        return AnnotationSupport.isAnnotated(context.getTestMethod(), CompareContainers.class);
+    }
+
+    @Override
+    public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(ExtensionContext context) {
+        Class<? extends TestContainerFactory>[] factoryClasses = AnnotationSupport
+                .findAnnotation(context.getTestMethod(), CompareContainers.class)
+                .map(CompareContainers::value)
+                .orElseThrow(IllegalStateException::new);
+        if (factoryClasses.length == 0) {
+            throw new ExtensionConfigurationException("@CompareContainers must declare at least one container factory");
+        }
+        context.getStore(NAMESPACE).put(Comparison.class, new Comparison(factoryClasses.length));
+        return IntStream.range(0, factoryClasses.length).mapToObj(i -> new TestTemplateInvocationContext() {
+
+            @Override
+            public String getDisplayName(int invocationIndex) {
+                return "[" + invocationIndex + "] " + factoryClasses[i].getSimpleName();
+            }
+
+            @Override
+            public List<Extension> getAdditionalExtensions() {
+                return Collections.singletonList(new ComparedFactory(ReflectionSupport.newInstance(factoryClasses[i])));
+            }
+        });
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(TEST_START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Long testStart = context.getStore(NAMESPACE).get(TEST_START_KEY, Long.class);
+        if (testStart != null) {
+            context.getStore(NAMESPACE).put(TEST_NANOS_KEY, System.nanoTime() - testStart);
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        Long start = store.get(START_KEY, Long.class);
+        Long testNanos = store.get(TEST_NANOS_KEY, Long.class);
+        Optional<Comparison> comparison = getComparison(context);
+        if (start == null || testNanos == null || !comparison.isPresent()) {
+            return;
+        }
+        String timing = "test " + TestTimings.formatMillis(testNanos) + " ms, total "
+                + TestTimings.formatMillis(System.nanoTime() - start) + " ms";
+        context.publishReportEntry("jersey.comparison", timing);
+        Map<String, String> timings = comparison.get().record(context.getDisplayName(), timing);
+        if (timings != null) {
+            context.getParent().ifPresent(parent -> parent.publishReportEntry(timings));
+        }
+    }
+
+    private static class ComparedFactory implements ExecutionCondition {
+
+        private final TestContainerFactory testContainerFactory;
+
+        ComparedFactory(TestContainerFactory testContainerFactory) {
+            this.testContainerFactory = testContainerFactory;
+        }
+
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            context.getStore(NAMESPACE).put(TestContainerFactory.class, testContainerFactory);
+            return ConditionEvaluationResult.enabled("Run in a container started by " + testContainerFactory.getClass().getSimpleName());
+        }
+    }
+
+    private static class Comparison {
+
+        private final int runs;
+        private final Map<String, String> timings = new LinkedHashMap<>();
+
+        Comparison(int runs) {
+            this.runs = runs;
+        }
+
+        /**
+         * Records the timing of a run, and returns the timings of every run once all of them have been recorded.
+         */
+        synchronized Map<String, String> record(String displayName, String timing) {
+            timings.put("jersey.comparison." + displayName, timing);
+            return timings.size() == runs ? new LinkedHashMap<>(timings) : null;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.JerseyTest;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Started test containers shared by every test class in a run, keyed by the fingerprint of their deployment.
+ * Containers stay started after the classes using them have finished so that later classes can reuse them, and are
+ * only stopped when the pool is closed at the end of the run.
+ */
+class ContainerPool implements ExtensionContext.Store.CloseableResource {
+
+    private final Map<DeploymentFingerprint, PooledContainer> containers = new ConcurrentHashMap<>();
+
+    static ContainerPool get(ExtensionContext context) {
+        return context.getRoot().getStore(ExtensionContext.Namespace.create(ContainerPool.class))
+                .getOrComputeIfAbsent(ContainerPool.class, (unused) -> new ContainerPool(), ContainerPool.class);
+    }
+
+    JerseyTest acquire(DeploymentFingerprint fingerprint, Callable<JerseyTest> starter) throws Exception {
+        return containers.computeIfAbsent(fingerprint, (unused) -> new PooledContainer()).acquire(starter);
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (PooledContainer container : containers.values()) {
+            try {
+                container.stop();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        containers.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class PooledContainer {
+
+        private JerseyTest jerseyTest;
+
+        synchronized JerseyTest acquire(Callable<JerseyTest> starter) throws Exception {
+            if (jerseyTest == null) {
+                jerseyTest = starter.call();
+            }
+            return jerseyTest;
+        }
+
+        synchronized void stop() throws Exception {
+            if (jerseyTest != null) {
+                JerseyTest stopped = jerseyTest;
+                jerseyTest = null;
+                stopped.tearDown();
+            }
+        }
+    }
+
+}
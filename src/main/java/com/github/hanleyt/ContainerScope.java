@@ -0,0 +1,36 @@
+package com.github.hanleyt;
+
+/**
+ * Controls how long a Jersey test container started by {@link JerseyExtension} lives.
+ */
+public enum ContainerScope {
+
+    /**
+     * A new container is started before, and stopped after, every test method. This is the default.
+     */
+    TEST,
+
+    /**
+     * One container is started per test class and shared by all of its test methods.
+     * Each {@code @Nested} class gets a container of its own.
+     */
+    CLASS,
+
+    /**
+     * One container is started per top level test class and shared by all of its test methods,
+     * including those declared in {@code @Nested} classes.
+     */
+    OUTERMOST_CLASS,
+
+    /**
+     * Containers are shared by all test classes in the run that deploy an identical application, using an identical
+     * container factory and client configuration. A container is started the first time its deployment is needed and
+     * stopped when the run finishes.
+     * <p>
+     * The client configuration is identical when it is set by the same function instance, so sharing is only safe
+     * when that function configures every client equally: the client of a shared container is configured once, with
+     * the {@link org.junit.jupiter.api.extension.ExtensionContext} of the first test class to use it.
+     */
+    SUITE
+
+}
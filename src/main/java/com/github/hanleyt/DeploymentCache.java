@@ -0,0 +1,84 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.ws.rs.core.Application;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The deployment contexts built during the run by extensions that cache their deployment, so that expensive
+ * configuration such as package scanning only happens once. Injected by {@link JerseyExtension} as a test method
+ * parameter when the extension is built with {@link JerseyExtension.Builder#cacheDeployment()}.
+ * <p>
+ * Each container is given a copy of the cached ResourceConfig, so that the features the extension registers for one
+ * container, such as profiling or compression, are not registered in containers started from the same deployment.
+ * The registered instances themselves are shared. Servlet deployments are not copied, since their application is
+ * configured by the servlet rather than by the ResourceConfig.
+ * <p>
+ * Invalidating a deployment context only affects containers started afterwards.
+ */
+public final class DeploymentCache {
+
+    private final Map<Object, DeploymentContext> deployments;
+    private final Object key;
+
+    private DeploymentCache(Map<Object, DeploymentContext> deployments, Object key) {
+        this.deployments = deployments;
+        this.key = key;
+    }
+
+    @SuppressWarnings("unchecked")
+    static DeploymentCache get(ExtensionContext context, Object key) {
+        Map<Object, DeploymentContext> deployments = context.getRoot().getStore(ExtensionContext.Namespace.create(DeploymentCache.class))
+                .getOrComputeIfAbsent(DeploymentCache.class, (unused) -> new ConcurrentHashMap<>(), Map.class);
+        return new DeploymentCache(deployments, key);
+    }
+
+    /**
+     * Returns a copy of the cached deployment context, building it with the given supplier if there is none.
+     * Tests running at the same time wait for a deployment context being built rather than build one of their own.
+     */
+    DeploymentContext get(Supplier<DeploymentContext> deploymentContextSupplier) {
+        return copyOf(deployments.computeIfAbsent(key, (unused) -> deploymentContextSupplier.get()));
+    }
+
+    private static DeploymentContext copyOf(DeploymentContext deploymentContext) {
+        if (deploymentContext instanceof ServletDeploymentContext) {
+            return deploymentContext;
+        }
+        ResourceConfig resourceConfig = deploymentContext.getResourceConfig();
+        ResourceConfig copy = new ResourceConfig(resourceConfig);
+        Application application = resourceConfig.getApplication();
+        if (application != resourceConfig) {
+            // a copy no longer wraps the application, so its registrations are copied as well
+            copy.addProperties(application.getProperties())
+                    .registerClasses(application.getClasses())
+                    .registerInstances(application.getSingletons());
+        }
+        return DeploymentContext.builder(copy).contextPath(deploymentContext.getContextPath()).build();
+    }
+
+    /**
+     * Removes the deployment context cached for the current test, so that it is built again for the next container.
+     */
+    public void invalidate() {
+        deployments.remove(key);
+    }
+
+    /**
+     * Removes the deployment context cached under the given declared key.
+     */
+    public void invalidate(Object key) {
+        deployments.remove(key);
+    }
+
+    public void invalidateAll() {
+        deployments.clear();
+    }
+
+}
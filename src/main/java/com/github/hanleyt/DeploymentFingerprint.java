@@ -0,0 +1,76 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Identifies a deployment so that identical deployments can share a started test container.
+ * Registered instances (rather than classes) only match when they are equal, which by default means the same instance.
+ * The same goes for the extra components, such as the functions configuring the client: lambdas only match when they
+ * are the same instance, so a lambda capturing different values never shares a container, while one that captures
+ * nothing is shared by every extension built from the same call site.
+ */
+final class DeploymentFingerprint {
+
+    private final List<Object> components;
+    private final int hashCode;
+
+    private DeploymentFingerprint(List<Object> components) {
+        this.components = components;
+        this.hashCode = components.hashCode();
+    }
+
+    static DeploymentFingerprint of(DeploymentContext deploymentContext,
+                                    TestContainerFactory testContainerFactory,
+                                    Object... extraComponents) {
+        ResourceConfig resourceConfig = deploymentContext.getResourceConfig();
+        List<Object> components = new ArrayList<>();
+        components.add(deploymentContext.getClass());
+        components.add(deploymentContext.getContextPath());
+        components.add(testContainerFactory == null ? null : testContainerFactory.getClass());
+        components.add(resourceConfig.getApplication().getClass());
+        components.add(new HashSet<>(resourceConfig.getClasses()));
+        components.add(new HashSet<>(resourceConfig.getInstances()));
+        components.add(new HashMap<>(resourceConfig.getProperties()));
+        if (deploymentContext instanceof ServletDeploymentContext) {
+            ServletDeploymentContext servletContext = (ServletDeploymentContext) deploymentContext;
+            components.add(servletContext.getServletPath());
+            components.add(servletContext.getServletClass());
+            components.add(servletContext.getServletInstance());
+            components.add(servletContext.getInitParams());
+            components.add(servletContext.getContextParams());
+            components.add(servletContext.getListeners());
+            servletContext.getFilters().forEach(filter -> components.add(Arrays.asList(
+                    filter.getFilterName(), filter.getFilterClass(), filter.getInitParams(), filter.getDispatcherTypes())));
+        }
+        components.addAll(Arrays.asList(extraComponents));
+        return new DeploymentFingerprint(components);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DeploymentFingerprint that = (DeploymentFingerprint) o;
+        return hashCode == that.hashCode && Objects.equals(components, that.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Injects the configured {@link Faults} into the requests sent by a client. The connectors of the client are wrapped
+ * to delay requests, reset connections and answer with server errors, and to throttle response entities, while a
+ * writer interceptor throttles request entities.
+ */
+class FaultInjection {
+
+    private final Faults faults;
+    private final Random random;
+
+    FaultInjection(Faults faults) {
+        this.faults = faults;
+        this.random = new Random(faults.getSeed());
+    }
+
+    void configure(ClientConfig config) {
+        config.connectorProvider(wrap(config.getConnectorProvider()));
+        if (faults.getBytesPerSecond() > 0) {
+            config.register(new ThrottlingInterceptor());
+        }
+    }
+
+    private ConnectorProvider wrap(ConnectorProvider connectorProvider) {
+        return (client, configuration) -> new FaultConnector(connectorProvider.getConnector(client, configuration));
+    }
+
+    /**
+     * Draws the faults of a request together, so that the sequence of faults only depends on the order of requests.
+     */
+    private synchronized Fault nextFault() {
+        long minNanos = faults.getMinLatency().toNanos();
+        long maxNanos = faults.getMaxLatency().toNanos();
+        long latencyNanos = minNanos + (long) (random.nextDouble() * (maxNanos - minNanos));
+        boolean reset = random.nextDouble() < faults.getResetRate();
+        boolean error = random.nextDouble() < faults.getErrorRate();
+        return new Fault(latencyNanos, reset, error);
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(new InterruptedIOException("Interrupted while injecting latency"));
+        }
+    }
+
+    private static class Fault {
+
+        private final long latencyNanos;
+        private final boolean reset;
+        private final boolean error;
+
+        Fault(long latencyNanos, boolean reset, boolean error) {
+            this.latencyNanos = latencyNanos;
+            this.reset = reset;
+            this.error = error;
+        }
+    }
+
+    private class FaultConnector implements Connector {
+
+        private final Connector delegate;
+
+        FaultConnector(Connector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            Fault fault = nextFault();
+            long readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(request.resolveProperty(ClientProperties.READ_TIMEOUT, 0));
+            if (readTimeoutNanos > 0 && fault.latencyNanos > readTimeoutNanos) {
+                sleep(readTimeoutNanos);
+                throw new ProcessingException(new SocketTimeoutException("Read timed out"));
+            }
+            sleep(fault.latencyNanos);
+            if (fault.reset) {
+                throw new ProcessingException(new SocketException("Connection reset"));
+            }
+            if (fault.error) {
+                ClientResponse response = new ClientResponse(Statuses.from(faults.getErrorStatus()), request);
+                response.setEntityStream(new ByteArrayInputStream(new byte[0]));
+                return response;
+            }
+            ClientResponse response = delegate.apply(request);
+            if (faults.getBytesPerSecond() > 0 && response.getEntityStream() != null) {
+                response.setEntityStream(new ThrottledInputStream(response.getEntityStream(), faults.getBytesPerSecond()));
+            }
+            return response;
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+            try {
+                callback.response(apply(request));
+            } catch (ProcessingException e) {
+                callback.failure(e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private class ThrottlingInterceptor implements WriterInterceptor {
+
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+            context.setOutputStream(new ThrottledOutputStream(context.getOutputStream(), faults.getBytesPerSecond()));
+            context.proceed();
+        }
+    }
+
+    /**
+     * Paces a transfer so that, after each chunk, no more bytes have been transferred than the bandwidth allows.
+     */
+    private static class Throttle {
+
+        private final long bytesPerSecond;
+        private long start;
+        private long bytes;
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        void transferred(int count) throws InterruptedIOException {
+            if (count <= 0) {
+                return;
+            }
+            if (bytes == 0) {
+                start = System.nanoTime();
+            }
+            bytes += count;
+            long dueNanos = start + bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+            long waitNanos = dueNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttling");
+                }
+            }
+        }
+    }
+
+    private static class ThrottledInputStream extends FilterInputStream {
+
+        private final Throttle throttle;
+
+        ThrottledInputStream(InputStream in, long bytesPerSecond) {
+            super(in);
+            this.throttle = new Throttle(bytesPerSecond);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            throttle.transferred(b == -1 ? 0 : 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            throttle.transferred(read);
+            return read;
+        }
+    }
+
+    private static class ThrottledOutputStream extends FilterOutputStream {
+
+        private final Throttle throttle;
+
+        ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.throttle = new Throttle(bytesPerSecond);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            throttle.transferred(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            throttle.transferred(len);
+        }
+    }
+
+}
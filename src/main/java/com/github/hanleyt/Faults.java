@@ -0,0 +1,129 @@
+package com.github.hanleyt;
+
+import java.time.Duration;
+
+/**
+ * Faults injected by {@link JerseyExtension} between the injected Client and the deployed application, so that
+ * timeouts, retries and backpressure can be tested against a local container. Faults are drawn from a random
+ * sequence with a fixed seed, so a test that sends its requests in the same order sees the same faults on every run.
+ * By default no faults are injected.
+ *
+ * <pre>{@code
+ * Faults faults = new Faults().latency(Duration.ofMillis(50), Duration.ofMillis(500)).errorRate(0.1);
+ * }</pre>
+ */
+public final class Faults {
+
+    private Duration minLatency = Duration.ZERO;
+    private Duration maxLatency = Duration.ZERO;
+    private long bytesPerSecond;
+    private double resetRate;
+    private double errorRate;
+    private int errorStatus = 503;
+    private long seed;
+
+    /**
+     * Delays every request by the given latency.
+     */
+    public Faults latency(Duration latency) {
+        return latency(latency, latency);
+    }
+
+    /**
+     * Delays every request by a latency drawn uniformly between the given bounds. A request whose latency exceeds
+     * the read timeout of the client fails with a {@link java.net.SocketTimeoutException} once the timeout elapses.
+     */
+    public Faults latency(Duration min, Duration max) {
+        if (min.isNegative() || max.compareTo(min) < 0) {
+            throw new IllegalArgumentException("The latency bounds must not be negative, and the maximum must not be less than the minimum");
+        }
+        this.minLatency = min;
+        this.maxLatency = max;
+        return this;
+    }
+
+    /**
+     * Limits the rate at which request and response entities are transferred to the given number of bytes per second.
+     */
+    public Faults bandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 1) {
+            throw new IllegalArgumentException("The bandwidth must be at least one byte per second");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Fails the given fraction of requests with a {@link java.net.SocketException} as if the connection had been
+     * reset, without sending them to the application.
+     */
+    public Faults resetRate(double rate) {
+        this.resetRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Answers the given fraction of requests with a 503 Service Unavailable response, without sending them to the
+     * application.
+     */
+    public Faults errorRate(double rate) {
+        return errorRate(rate, 503);
+    }
+
+    /**
+     * Answers the given fraction of requests with a response of the given server error status, without sending them
+     * to the application.
+     */
+    public Faults errorRate(double rate, int status) {
+        if (status < 500 || status > 599) {
+            throw new IllegalArgumentException("The error status must be a server error status");
+        }
+        this.errorRate = checkRate(rate);
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random sequence from which faults are drawn.
+     */
+    public Faults seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The rate must be between 0 and 1");
+        }
+        return rate;
+    }
+
+    Duration getMinLatency() {
+        return minLatency;
+    }
+
+    Duration getMaxLatency() {
+        return maxLatency;
+    }
+
+    long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    double getResetRate() {
+        return resetRate;
+    }
+
+    double getErrorRate() {
+        return errorRate;
+    }
+
+    int getErrorStatus() {
+        return errorStatus;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+}
@@ -1,124 +1,1060 @@
 package com.github.hanleyt;
 
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.DeploymentContext;
 import org.glassfish.jersey.test.JerseyTest;
 import org.glassfish.jersey.test.TestProperties;
+import org.glassfish.jersey.test.inmemory.InMemoryTestContainerFactory;
 import org.glassfish.jersey.test.spi.TestContainerException;
 import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.ReflectionSupport;
 
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Application;
+import java.net.BindException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-public class JerseyExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver {
+public class JerseyExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver {
 
-    private static final Collection<Class<?>> INJECTABLE_PARAMETER_TYPES = Arrays.asList(Client.class, WebTarget.class, URI.class);
+    private static final int MAX_BIND_ATTEMPTS = 5;
+    private static final String IN_MEMORY_TEST_CONTAINER_FACTORY = "org.glassfish.jersey.test.inmemory.InMemoryTestContainerFactory";
+    private static final Collection<Class<?>> INJECTABLE_PARAMETER_TYPES = Arrays.asList(Client.class, WebTarget.class, URI.class, LoadDriver.class, AsyncRequests.class,
+            StreamingRequests.class, DeploymentCache.class, ServerProfile.class, PayloadSizes.class);
 
     private final Function<ExtensionContext, TestContainerFactory> testContainerFactoryProvider;
     private final Function<ExtensionContext, DeploymentContext> deploymentContextProvider;
     private final BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider;
+    private final ContainerScope scope;
+    private final Consumer<ExtensionContext> resetHook;
+    private final int prestartedContainers;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final boolean timings;
+    private final Path timingReport;
+    private final boolean lazyStart;
+    private final Supplier<ExecutorService> asyncExecutor;
+    private final boolean virtualThreads;
+    private final int chunkSize;
+    private final boolean cacheDeployment;
+    private final Object deploymentCacheKey;
+    private final Class<?> deploymentSource;
+    private final int fromPort;
+    private final int toPort;
+    private final boolean profiling;
+    private final Path snapshotDirectory;
+    private final SnapshotMode snapshotMode;
+    private final Faults faults;
+    private final LeakCheck leakCheck;
+    private final boolean gzip;
+    private final boolean payloadSizes;
+    private final boolean restoreState;
+    private final ExtensionContext.Namespace namespace;
+    private final ExtensionContext.Namespace sharedNamespace;
+    private final boolean declared;
 
+    /**
+     * Used when the extension is registered with {@code @ExtendWith}, usually by {@link JerseyTestApp}, in which case
+     * it is configured by the {@link JerseyTestApp} annotation of each test class.
+     */
     private JerseyExtension() {
-        throw new IllegalStateException("JerseyExtension must be registered programmatically");
+        this(new Builder().declared());
     }
 
     public JerseyExtension(Supplier<Application> applicationSupplier) {
-        this((unused) -> applicationSupplier.get(), null);
+        this(builder().application(applicationSupplier));
     }
 
     public JerseyExtension(Supplier<Application> applicationSupplier,
                            BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider) {
-        this((unused) -> applicationSupplier.get(), configProvider);
+        this(builder().application(applicationSupplier).clientConfig(configProvider));
     }
 
     public JerseyExtension(Function<ExtensionContext, Application> applicationProvider) {
-        this(applicationProvider, null);
+        this(builder().application(applicationProvider));
     }
 
     public JerseyExtension(Function<ExtensionContext, Application> applicationProvider,
                            BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider) {
-        this(null, (context) -> DeploymentContext.builder(applicationProvider.apply(context)).build(), configProvider);
+        this(builder().application(applicationProvider).clientConfig(configProvider));
     }
 
     public JerseyExtension(Function<ExtensionContext, TestContainerFactory> testContainerFactoryProvider,
                            Function<ExtensionContext, DeploymentContext> deploymentContextProvider,
                            BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider) {
-        this.testContainerFactoryProvider = testContainerFactoryProvider;
-        this.deploymentContextProvider = deploymentContextProvider;
-        this.configProvider = configProvider;
+        this(builder().testContainerFactory(testContainerFactoryProvider)
+                .deploymentContext(deploymentContextProvider)
+                .clientConfig(configProvider));
+    }
+
+    private JerseyExtension(Builder builder) {
+        this.testContainerFactoryProvider = builder.testContainerFactoryProvider;
+        Function<ExtensionContext, DeploymentContext> deploymentContextProvider = builder.deploymentContextProvider;
+        this.deploymentContextProvider = builder.cacheDeployment
+                ? (context) -> getDeploymentCache(context).get(() -> deploymentContextProvider.apply(context))
+                : deploymentContextProvider;
+        this.configProvider = builder.configProvider;
+        this.scope = builder.scope;
+        this.resetHook = builder.resetHook;
+        this.prestartedContainers = builder.prestartedContainers;
+        this.maxConnections = builder.maxConnections;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.timings = builder.timings;
+        this.timingReport = builder.timingReport;
+        this.lazyStart = builder.lazyStart;
+        this.virtualThreads = builder.virtualThreads && VirtualThreads.isSupported();
+        this.chunkSize = builder.chunkSize;
+        this.cacheDeployment = builder.cacheDeployment;
+        this.deploymentCacheKey = builder.deploymentCacheKey;
+        this.deploymentSource = classOf(builder.deploymentSource);
+        this.fromPort = builder.fromPort;
+        this.toPort = builder.toPort;
+        this.profiling = builder.profiling;
+        this.snapshotDirectory = builder.snapshotDirectory;
+        this.snapshotMode = builder.snapshotMode;
+        this.faults = builder.faults;
+        this.leakCheck = builder.leakCheck;
+        this.gzip = builder.gzip;
+        this.payloadSizes = builder.payloadSizes;
+        this.restoreState = builder.restoreState;
+        this.asyncExecutor = builder.asyncExecutor == null && virtualThreads
+                ? () -> VirtualThreads.newVirtualThreadPerTaskExecutor().get()
+                : builder.asyncExecutor;
+        this.declared = builder.declared;
+        this.namespace = ExtensionContext.Namespace.create(JerseyExtension.class, this);
+        // Shared containers outlive the extension instance when it is registered on a per-method test instance,
+        // so they are keyed by where the extension was configured rather than by the instance itself.
+        this.sharedNamespace = ExtensionContext.Namespace.create(JerseyExtension.class, Arrays.asList(scope,
+                deploymentSource, classOf(testContainerFactoryProvider), classOf(configProvider)));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        if (declared) {
+            getDeclaredExtension(context).beforeAll(context);
+            return;
+        }
+        if (scope != ContainerScope.TEST && (!lazyStart || isContainerRequired(context))) {
+            getSharedJerseyTest(context);
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws Exception {
+        if (declared) {
+            getDeclaredExtension(context).afterAll(context);
+            return;
+        }
+        if (scope != ContainerScope.TEST && getScopeContext(context) == context) {
+            JerseyTestResource resource = context.getStore(sharedNamespace)
+                    .remove(context.getUniqueId(), JerseyTestResource.class);
+            if (resource != null) {
+                long stopStart = System.nanoTime();
+                resource.close();
+                if (timings) {
+                    context.publishReportEntry("jersey.container.stop.ms", TestTimings.formatMillis(System.nanoTime() - stopStart));
+                }
+                LeakChecker.Snapshot beforeStart = context.getStore(sharedNamespace)
+                        .remove(Arrays.asList(LeakChecker.Snapshot.class, context.getUniqueId()), LeakChecker.Snapshot.class);
+                if (beforeStart != null) {
+                    new LeakChecker(leakCheck).afterStop(context, beforeStart);
+                }
+            }
+        }
     }
 
     @Override
     public void beforeEach(ExtensionContext context) throws Exception {
-        JerseyTest jerseyTest = initJerseyTest(context);
-        getStore(context).put(Client.class, jerseyTest.client());
-        getStore(context).put(WebTarget.class, jerseyTest.target());
-        getStore(context).put(URI.class, jerseyTest.target().getUri());
+        if (declared) {
+            getDeclaredExtension(context).beforeEach(context);
+            return;
+        }
+        if (!lazyStart || isContainerRequired(context)) {
+            startContainer(context);
+        }
+    }
+
+    private static boolean isContainerRequired(ExtensionContext context) {
+        for (Optional<ExtensionContext> current = Optional.of(context); current.isPresent(); current = current.get().getParent()) {
+            if (AnnotationSupport.isAnnotated(current.get().getElement(), RequiresContainer.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startContainer(ExtensionContext context) throws Exception {
+        if (leakCheck != null) {
+            getStore(context).put(LeakChecker.Snapshot.class, LeakChecker.beforeStart());
+        }
+        long containerStart = System.nanoTime();
+        Long sharedContainerStart = null;
+        Optional<TestContainerFactory> comparedFactory = ContainerComparison.getTestContainerFactory(context);
+        JerseyTest jerseyTest;
+        if (comparedFactory.isPresent()) {
+            jerseyTest = initJerseyTest(context, deploymentContextProvider.apply(context), comparedFactory.get());
+        } else if (scope != ContainerScope.TEST) {
+            jerseyTest = getSharedJerseyTest(context);
+            ExtensionContext scopeContext = getScopeContext(context);
+            sharedContainerStart = scopeContext.getStore(sharedNamespace)
+                    .remove(Arrays.asList(TestTimings.class, scopeContext.getUniqueId()), Long.class);
+        } else if (prestartedContainers > 0) {
+            jerseyTest = getPrestartedContainers(context).take();
+        } else {
+            jerseyTest = initJerseyTest(context);
+        }
+        if (restoreState) {
+            StateRestorer.of(jerseyTest.client()).ifPresent(StateRestorer::restore);
+        }
+        getStore(context).put(JerseyTest.class, jerseyTest);
+        WebTarget target;
+        if (scope == ContainerScope.TEST && maxConnections > 0 && PooledConnections.isReusable(jerseyTest.client())) {
+            Client client = getPooledClient(context, jerseyTest);
+            target = client.target(jerseyTest.target().getUri());
+            getStore(context).put(Client.class, client);
+        } else {
+            target = jerseyTest.target();
+            getStore(context).put(Client.class, jerseyTest.client());
+        }
+        getStore(context).put(WebTarget.class, target);
+        getStore(context).put(URI.class, target.getUri());
+        getStore(context).put(LoadDriver.class, new LoadDriver(target));
+        getStore(context).put(AsyncRequests.class, new AsyncRequests(target));
+        getStore(context).put(StreamingRequests.class, new StreamingRequests(target));
+        if (cacheDeployment) {
+            getStore(context).put(DeploymentCache.class, getDeploymentCache(context));
+        }
+        if (fromPort > 0 && !isInMemory(comparedFactory.orElseGet(() -> getTestContainerFactory(context)))) {
+            PortAllocator portAllocator = PortAllocator.get(context, fromPort, toPort);
+            Map<String, String> portUsage = new LinkedHashMap<>();
+            portUsage.put("jersey.container.port", String.valueOf(target.getUri().getPort()));
+            portUsage.put("jersey.ports.in.use", String.valueOf(portAllocator.getInUse()));
+            portUsage.put("jersey.ports.peak", String.valueOf(portAllocator.getPeakInUse()));
+            portUsage.put("jersey.ports.allocated", String.valueOf(portAllocator.getAllocations()));
+            context.publishReportEntry(portUsage);
+        }
+        if (profiling) {
+            ServerProfile serverProfile = new ServerProfile();
+            getStore(context).put(ServerProfile.class, serverProfile);
+            // A pooled client outlives the containers of a class, so the feature is found on the container's own client.
+            ProfilingFeature.of(jerseyTest.client()).ifPresent(feature -> feature.start(serverProfile));
+        }
+        if (payloadSizes) {
+            PayloadSizes sizes = new PayloadSizes();
+            getStore(context).put(PayloadSizes.class, sizes);
+            PayloadCounter.of(getStore(context).get(Client.class, Client.class)).ifPresent(counter -> counter.start(sizes));
+        }
+        if (timings) {
+            TestTimings testTimings = new TestTimings(context.getTestClass().map(Class::getName).orElse("") + " " + context.getDisplayName());
+            if (scope == ContainerScope.TEST || comparedFactory.isPresent()) {
+                testTimings.setContainerStartNanos(System.nanoTime() - containerStart);
+            } else if (sharedContainerStart != null) {
+                testTimings.setContainerStartNanos(sharedContainerStart);
+            }
+            getStore(context).put(TestTimings.class, testTimings);
+            TimingFilter.of(getStore(context).get(Client.class, Client.class)).ifPresent(filter -> filter.start(testTimings));
+        }
+    }
+
+    private Client getPooledClient(ExtensionContext context, JerseyTest jerseyTest) {
+        ExtensionContext classContext = getClassContext(context);
+        return classContext.getStore(sharedNamespace).getOrComputeIfAbsent(
+                Arrays.asList(ClientResource.class, classContext.getUniqueId()),
+                (unused) -> new ClientResource(ClientBuilder.newClient(new ClientConfig().loadFrom(jerseyTest.client().getConfiguration()))),
+                ClientResource.class).client;
+    }
+
+    private PooledConnections getPooledConnections(ExtensionContext context) {
+        ExtensionContext clientContext = getClientContext(context);
+        return clientContext.getStore(sharedNamespace).getOrComputeIfAbsent(
+                Arrays.asList(PooledConnections.class, clientContext.getUniqueId()),
+                (unused) -> new PooledConnections(maxConnections, maxConnectionsPerRoute),
+                PooledConnections.class);
+    }
+
+    private ExecutorService getAsyncExecutor(ExtensionContext context) {
+        ExtensionContext clientContext = getClientContext(context);
+        return clientContext.getStore(sharedNamespace).getOrComputeIfAbsent(
+                Arrays.asList(ExecutorResource.class, clientContext.getUniqueId()),
+                (unused) -> new ExecutorResource(asyncExecutor.get()),
+                ExecutorResource.class).executor;
+    }
+
+    /**
+     * Returns the context that owns resources shared by the clients of a container scope,
+     * or of a test class when each test has a container of its own.
+     */
+    private ExtensionContext getClientContext(ExtensionContext context) {
+        return scope == ContainerScope.SUITE ? context.getRoot() : getScopeContext(context);
+    }
+
+    /**
+     * Returns the cache entry for the declared key, or otherwise for the test class and where the extension was configured.
+     */
+    private DeploymentCache getDeploymentCache(ExtensionContext context) {
+        Object key = deploymentCacheKey != null
+                ? deploymentCacheKey
+                : Arrays.asList(context.getRequiredTestClass(), deploymentSource);
+        return DeploymentCache.get(context, key);
     }
 
     private JerseyTest initJerseyTest(ExtensionContext context) throws Exception {
+        return initJerseyTest(context, deploymentContextProvider.apply(context), getTestContainerFactory(context));
+    }
+
+    private JerseyTest initJerseyTest(ExtensionContext context,
+                                      DeploymentContext deploymentContext,
+                                      TestContainerFactory testContainerFactory) throws Exception {
+        if (fromPort == 0 || isInMemory(testContainerFactory)) {
+            return initJerseyTest(context, deploymentContext, testContainerFactory, 0, null);
+        }
+        PortAllocator portAllocator = PortAllocator.get(context, fromPort, toPort);
+        for (int attempt = 1; ; attempt++) {
+            int port = portAllocator.allocate();
+            try {
+                return initJerseyTest(context, deploymentContext, testContainerFactory, port, portAllocator);
+            } catch (Exception e) {
+                portAllocator.release(port);
+                // Another process can bind the port between it being allocated and the container binding it.
+                if (attempt == MAX_BIND_ATTEMPTS || !isBindFailure(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the containers of the given factory, or of the default factory when no factory is given, are in-memory
+     * containers, which bind no port.
+     */
+    private static boolean isInMemory(TestContainerFactory testContainerFactory) {
+        String factoryClassName = testContainerFactory == null
+                ? System.getProperty(TestProperties.CONTAINER_FACTORY, TestProperties.DEFAULT_CONTAINER_FACTORY)
+                : testContainerFactory.getClass().getName();
+        return IN_MEMORY_TEST_CONTAINER_FACTORY.equals(factoryClassName);
+    }
+
+    private static boolean isBindFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BindException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JerseyTest initJerseyTest(ExtensionContext context,
+                                      DeploymentContext deploymentContext,
+                                      TestContainerFactory testContainerFactory,
+                                      int port,
+                                      PortAllocator portAllocator) throws Exception {
+        ProfilingFeature profilingFeature = profiling ? ProfilingFeature.register(deploymentContext.getResourceConfig()) : null;
+        StateRestorer stateRestorer = restoreState ? StateRestorer.register(deploymentContext.getResourceConfig()) : null;
+        if (gzip) {
+            Compression.enable(deploymentContext.getResourceConfig());
+        }
         JerseyTest jerseyTest = new JerseyTest() {
 
             @Override
             protected DeploymentContext configureDeployment() {
-                forceSet(TestProperties.CONTAINER_PORT, "0");
-                return deploymentContextProvider.apply(context);
+                forceSet(TestProperties.CONTAINER_PORT, String.valueOf(port));
+                return deploymentContext;
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                try {
+                    super.tearDown();
+                } finally {
+                    if (portAllocator != null) {
+                        portAllocator.release(port);
+                    }
+                }
             }
 
             @Override
             protected TestContainerFactory getTestContainerFactory() throws TestContainerException {
-                if (testContainerFactoryProvider != null) {
-                    return testContainerFactoryProvider.apply(context);
+                if (virtualThreads && VirtualThreadTestContainerFactory.supports(testContainerFactory, deploymentContext)) {
+                    return new VirtualThreadTestContainerFactory();
+                }
+                if (testContainerFactory != null) {
+                    return testContainerFactory;
                 }
                 return super.getTestContainerFactory();
             }
 
             @Override
             protected void configureClient(ClientConfig config) {
+                if (maxConnections > 0) {
+                    getPooledConnections(context).configure(config);
+                }
+                if (timings) {
+                    config.register(new TimingFilter());
+                }
+                if (asyncExecutor != null) {
+                    config.executorService(getAsyncExecutor(context));
+                }
+                if (profilingFeature != null) {
+                    profilingFeature.configure(config);
+                }
+                if (stateRestorer != null) {
+                    stateRestorer.configure(config);
+                }
+                if (gzip) {
+                    Compression.enable(config);
+                }
+                if (payloadSizes) {
+                    config.register(new PayloadCounter());
+                }
+                if (chunkSize > 0) {
+                    config.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
+                    config.property(ClientProperties.CHUNKED_ENCODING_SIZE, chunkSize);
+                }
                 if (configProvider != null) {
                     config = configProvider.apply(context, config);
                 }
+                if (snapshotDirectory != null) {
+                    ResponseSnapshots responseSnapshots = new ResponseSnapshots(snapshotDirectory, snapshotMode);
+                    config.connectorProvider(responseSnapshots.wrap(config.getConnectorProvider()));
+                }
+                if (faults != null) {
+                    new FaultInjection(faults).configure(config);
+                }
                 super.configureClient(config);
             }
         };
         jerseyTest.setUp();
-        getStore(context).put(JerseyTest.class, jerseyTest);
         return jerseyTest;
     }
 
+    private TestContainerFactory getTestContainerFactory(ExtensionContext context) {
+        return testContainerFactoryProvider == null ? null : testContainerFactoryProvider.apply(context);
+    }
+
+    private JerseyTest getSharedJerseyTest(ExtensionContext context) {
+        ExtensionContext scopeContext = getScopeContext(context);
+        return scopeContext.getStore(sharedNamespace).getOrComputeIfAbsent(scopeContext.getUniqueId(), (unused) -> {
+            try {
+                if (scope == ContainerScope.SUITE) {
+                    return leaseJerseyTest(scopeContext);
+                }
+                if (leakCheck != null) {
+                    scopeContext.getStore(sharedNamespace).put(Arrays.asList(LeakChecker.Snapshot.class, scopeContext.getUniqueId()),
+                            LeakChecker.beforeStart());
+                }
+                return new JerseyTestResource(timeSharedStart(scopeContext, () -> initJerseyTest(scopeContext)), false);
+            } catch (Exception e) {
+                throw new TestContainerException("Failed to start the shared Jersey test container", e);
+            }
+        }, JerseyTestResource.class).jerseyTest;
+    }
+
+    // A shared container may be started in beforeAll, so its start time is kept until the first test takes it.
+    private JerseyTest timeSharedStart(ExtensionContext scopeContext, Callable<JerseyTest> starter) throws Exception {
+        long containerStart = System.nanoTime();
+        JerseyTest jerseyTest = starter.call();
+        if (timings) {
+            scopeContext.getStore(sharedNamespace).put(Arrays.asList(TestTimings.class, scopeContext.getUniqueId()),
+                    System.nanoTime() - containerStart);
+        }
+        return jerseyTest;
+    }
+
+    private JerseyTestResource leaseJerseyTest(ExtensionContext context) throws Exception {
+        DeploymentContext deploymentContext = deploymentContextProvider.apply(context);
+        TestContainerFactory testContainerFactory = getTestContainerFactory(context);
+        DeploymentFingerprint fingerprint = DeploymentFingerprint.of(deploymentContext, testContainerFactory,
+                configProvider, maxConnections, maxConnectionsPerRoute, timings, asyncExecutor, virtualThreads, chunkSize,
+                profiling, snapshotDirectory, snapshotMode, faults, gzip, payloadSizes, restoreState);
+        ContainerPool pool = ContainerPool.get(context);
+        JerseyTest jerseyTest = pool.acquire(fingerprint,
+                () -> timeSharedStart(context, () -> initJerseyTest(context, deploymentContext, testContainerFactory)));
+
+        return new JerseyTestResource(jerseyTest, true);
+    }
+
+    private PrestartedContainers getPrestartedContainers(ExtensionContext context) {
+        ExtensionContext classContext = getClassContext(context);
+        return classContext.getStore(sharedNamespace).getOrComputeIfAbsent(
+                Arrays.asList(PrestartedContainers.class, classContext.getUniqueId()),
+                (unused) -> new PrestartedContainers(prestartedContainers, classContext.getRequiredTestClass(),
+                        () -> initJerseyTest(classContext)),
+                PrestartedContainers.class);
+    }
+
+    private static ExtensionContext getClassContext(ExtensionContext context) {
+        ExtensionContext classContext = context;
+        while (classContext.getTestMethod().isPresent()) {
+            classContext = classContext.getParent().orElseThrow(IllegalStateException::new);
+        }
+        return classContext;
+    }
+
+    private ExtensionContext getScopeContext(ExtensionContext context) {
+        ExtensionContext scopeContext = getClassContext(context);
+        if (scope == ContainerScope.OUTERMOST_CLASS) {
+            Optional<ExtensionContext> parent = scopeContext.getParent();
+            while (parent.isPresent() && parent.get().getTestClass().isPresent()) {
+                scopeContext = parent.get();
+                parent = scopeContext.getParent();
+            }
+        }
+        return scopeContext;
+    }
+
     @Override
     public void afterEach(ExtensionContext context) throws Exception {
+        if (declared) {
+            getDeclaredExtension(context).afterEach(context);
+            return;
+        }
         ExtensionContext.Store store = getStore(context);
-        store.remove(JerseyTest.class, JerseyTest.class).tearDown();
+        JerseyTest jerseyTest = store.remove(JerseyTest.class, JerseyTest.class);
+        if (jerseyTest == null) {
+            return;
+        }
+        Client client = store.remove(Client.class, Client.class);
+        ServerProfile serverProfile = store.get(ServerProfile.class, ServerProfile.class);
+        if (serverProfile != null) {
+            ProfilingFeature.of(jerseyTest.client()).ifPresent(feature -> feature.stop(serverProfile));
+
+        }
+        PayloadSizes sizes = store.get(PayloadSizes.class, PayloadSizes.class);
+        if (sizes != null) {
+            PayloadCounter.of(client).ifPresent(counter -> counter.stop(sizes));
+        }
         INJECTABLE_PARAMETER_TYPES.forEach(store::remove);
+        TestTimings testTimings = store.remove(TestTimings.class, TestTimings.class);
+        if (testTimings != null) {
+            TimingFilter.of(client).ifPresent(filter -> filter.stop(testTimings));
+        }
+        LeakChecker.Snapshot beforeStart = store.remove(LeakChecker.Snapshot.class, LeakChecker.Snapshot.class);
+        long containerStop = System.nanoTime();
+        boolean compared = ContainerComparison.getTestContainerFactory(context).isPresent();
+        boolean stopped = false;
+        if (compared) {
+            jerseyTest.tearDown();
+            stopped = true;
+        } else if (scope != ContainerScope.TEST) {
+            if (resetHook != null) {
+                resetHook.accept(context);
+            }
+        } else if (prestartedContainers > 0) {
+            getPrestartedContainers(context).recycle(jerseyTest);
+        } else {
+            jerseyTest.tearDown();
+            stopped = true;
+        }
+        if (testTimings != null) {
+            if (scope == ContainerScope.TEST || compared) {
+                testTimings.setContainerStopNanos(System.nanoTime() - containerStop);
+            }
+            context.publishReportEntry(testTimings.toReportEntries());
+            if (timingReport != null) {
+                TimingReport.get(context, timingReport).add(testTimings);
+            }
+        }
+        if (stopped && beforeStart != null) {
+            new LeakChecker(leakCheck).afterStop(context, beforeStart);
+        }
     }
 
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        if (declared) {
+            return getDeclaredExtension(extensionContext).supportsParameter(parameterContext, extensionContext);
+        }
         Class<?> parameterType = parameterContext.getParameter().getType();
-        return INJECTABLE_PARAMETER_TYPES.contains(parameterType);
+        return INJECTABLE_PARAMETER_TYPES.contains(parameterType)
+                && (parameterType != DeploymentCache.class || cacheDeployment)
+                && (parameterType != ServerProfile.class || profiling)
+                && (parameterType != PayloadSizes.class || payloadSizes);
     }
 
     @Override
     public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        if (declared) {
+            return getDeclaredExtension(extensionContext).resolveParameter(parameterContext, extensionContext);
+        }
         Class<?> parameterType = parameterContext.getParameter().getType();
+        if (lazyStart && getStore(extensionContext).get(JerseyTest.class) == null) {
+            if (!extensionContext.getTestMethod().isPresent()) {
+                // a container started for a class level context would never be stopped by afterEach
+                throw new ParameterResolutionException("A lazily started Jersey test container can only be injected into test methods");
+            }
+            try {
+                startContainer(extensionContext);
+            } catch (Exception e) {
+                throw new ParameterResolutionException("Failed to start the Jersey test container", e);
+            }
+        }
         return getStore(extensionContext).get(parameterType, parameterType);
     }
 
-    public static ExtensionContext.Store getStore(ExtensionContext context) {
-        return context.getStore(ExtensionContext.Namespace.GLOBAL);
+    /**
+     * Returns the store holding the JerseyTest, Client, WebTarget and URI created by this extension for the current test.
+     * Each registered extension has a store of its own.
+     */
+    public ExtensionContext.Store getStore(ExtensionContext context) {
+        if (declared) {
+            return getDeclaredExtension(context).getStore(context);
+        }
+        return context.getStore(namespace);
+    }
+
+    /**
+     * Returns the extension configured by the {@link JerseyTestApp} annotation that applies to the test class.
+     * Extensions are cached in the root store by test class, and by annotation so that classes declaring identical
+     * annotations share one extension and its deployment.
+     */
+    private static JerseyExtension getDeclaredExtension(ExtensionContext context) {
+        Class<?> testClass = context.getRequiredTestClass();
+        ExtensionContext.Store store = context.getRoot().getStore(ExtensionContext.Namespace.create(JerseyTestApp.class));
+        return store.getOrComputeIfAbsent(testClass, (unused) -> {
+            JerseyTestApp jerseyTestApp = findJerseyTestApp(testClass).orElseThrow(() -> new ExtensionConfigurationException(
+                    "JerseyExtension must be registered programmatically or configured with @JerseyTestApp on " + testClass.getName()));
+            return store.getOrComputeIfAbsent(jerseyTestApp, JerseyExtension::declaredBy, JerseyExtension.class);
+        }, JerseyExtension.class);
+    }
+
+    private static Optional<JerseyTestApp> findJerseyTestApp(Class<?> testClass) {
+        for (Class<?> declaringClass = testClass; declaringClass != null; declaringClass = declaringClass.getEnclosingClass()) {
+            Optional<JerseyTestApp> jerseyTestApp = AnnotationSupport.findAnnotation(declaringClass, JerseyTestApp.class);
+            if (jerseyTestApp.isPresent()) {
+                return jerseyTestApp;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static JerseyExtension declaredBy(JerseyTestApp jerseyTestApp) {
+        if (jerseyTestApp.application() == Application.class
+                && jerseyTestApp.resources().length == 0 && jerseyTestApp.packages().length == 0) {
+            throw new ExtensionConfigurationException("@JerseyTestApp must declare an application, resources or packages");
+        }
+        Builder builder = builder()
+                .application(() -> newApplication(jerseyTestApp))
+                .scope(jerseyTestApp.scope())
+                .cacheDeployment(jerseyTestApp);
+        if (jerseyTestApp.container() != TestContainerFactory.class) {
+            TestContainerFactory testContainerFactory = ReflectionSupport.newInstance(jerseyTestApp.container());
+            builder.testContainerFactory((unused) -> testContainerFactory);
+        }
+        return builder.build();
+    }
+
+    private static Application newApplication(JerseyTestApp jerseyTestApp) {
+        ResourceConfig resourceConfig = jerseyTestApp.application() == Application.class
+                ? new ResourceConfig()
+                : ResourceConfig.forApplication(ReflectionSupport.newInstance(jerseyTestApp.application()));
+        return resourceConfig.registerClasses(jerseyTestApp.resources()).packages(jerseyTestApp.packages());
+    }
+
+    private static Class<?> classOf(Object object) {
+        return object == null ? null : object.getClass();
+    }
+
+    private static class JerseyTestResource implements ExtensionContext.Store.CloseableResource {
+
+        private final JerseyTest jerseyTest;
+        private final boolean pooled;
+
+        JerseyTestResource(JerseyTest jerseyTest, boolean pooled) {
+            this.jerseyTest = jerseyTest;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (!pooled) {
+                jerseyTest.tearDown();
+            }
+        }
+
+    }
+
+    private static class ClientResource implements ExtensionContext.Store.CloseableResource {
+
+        private final Client client;
+
+        ClientResource(Client client) {
+            this.client = client;
+        }
+
+        @Override
+        public void close() {
+            client.close();
+        }
+    }
+
+    private static class ExecutorResource implements ExtensionContext.Store.CloseableResource {
+
+        private final ExecutorService executor;
+
+        ExecutorResource(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds a {@link JerseyExtension}. An application or deployment context must be configured.
+     */
+    public static final class Builder {
+
+        private Function<ExtensionContext, TestContainerFactory> testContainerFactoryProvider;
+        private Function<ExtensionContext, DeploymentContext> deploymentContextProvider;
+        private BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider;
+        private ContainerScope scope = ContainerScope.TEST;
+        private Consumer<ExtensionContext> resetHook;
+        private int prestartedContainers;
+        private int maxConnections;
+        private int maxConnectionsPerRoute;
+        private boolean timings;
+        private Path timingReport;
+        private boolean lazyStart;
+        private Supplier<ExecutorService> asyncExecutor;
+        private boolean virtualThreads;
+        private int chunkSize;
+        private boolean cacheDeployment;
+        private Object deploymentCacheKey;
+        private int fromPort;
+        private int toPort;
+        private boolean profiling;
+        private Path snapshotDirectory;
+        private SnapshotMode snapshotMode;
+        private Faults faults;
+        private LeakCheck leakCheck;
+        private boolean gzip;
+        private boolean payloadSizes;
+        private boolean restoreState;
+        private Object deploymentSource;
+        private boolean declared;
+
+        private Builder() {
+        }
+
+        public Builder application(Supplier<Application> applicationSupplier) {
+            this.deploymentContextProvider = (unused) -> DeploymentContext.builder(applicationSupplier.get()).build();
+            this.deploymentSource = applicationSupplier;
+            return this;
+        }
+
+        public Builder application(Function<ExtensionContext, Application> applicationProvider) {
+            this.deploymentContextProvider = (context) -> DeploymentContext.builder(applicationProvider.apply(context)).build();
+            this.deploymentSource = applicationProvider;
+            return this;
+        }
+
+        public Builder deploymentContext(Function<ExtensionContext, DeploymentContext> deploymentContextProvider) {
+            this.deploymentContextProvider = deploymentContextProvider;
+            this.deploymentSource = deploymentContextProvider;
+            return this;
+        }
+
+        public Builder testContainerFactory(Function<ExtensionContext, TestContainerFactory> testContainerFactoryProvider) {
+            this.testContainerFactoryProvider = testContainerFactoryProvider;
+            return this;
+        }
+
+        /**
+         * Deploys the application in memory, with the client calling it directly rather than over a socket.
+         * Requires {@code jersey-test-framework-provider-inmemory} on the test classpath, and does not support
+         * servlet deployments or features that depend on the network connection.
+         */
+        public Builder inMemory() {
+            return testContainerFactory((unused) -> new InMemoryTestContainerFactory());
+        }
+
+        public Builder clientConfig(BiFunction<ExtensionContext, ClientConfig, ClientConfig> configProvider) {
+            this.configProvider = configProvider;
+            return this;
+        }
+
+        public Builder pooledClient() {
+            return pooledClient(200, 50);
+        }
+
+        /**
+         * Sends requests over a pool of keep-alive connections, using the Apache connector when
+         * {@code jersey-apache-connector} is on the test classpath. The pool and the injected Client are shared by
+         * all tests in a container scope, or by all tests in a class when each test has a container of its own.
+         * Client configuration functions are applied after the pooled connector is installed.
+         */
+        public Builder pooledClient(int maxConnections, int maxConnectionsPerRoute) {
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets how long the test container lives. When the container outlives a single test, the
+         * {@link ExtensionContext} passed to the configuration functions is the one of the class that owns it.
+         */
+        public Builder scope(ContainerScope scope) {
+            this.scope = scope;
+            return this;
+        }
+
+        /**
+         * Sets a hook that is called after each test that ran against a shared container,
+         * so that state held by the deployed application can be reset.
+         */
+        public Builder resetHook(Consumer<ExtensionContext> resetHook) {
+            this.resetHook = resetHook;
+            return this;
+        }
+
+        /**
+         * Keeps the given number of containers for the deployment started on background threads, so that a test
+         * with a container of its own does not have to wait for it to start. Containers are started with the
+         * {@link ExtensionContext} of the test class, no more of them than the class has test methods, and used
+         * containers are stopped in the background. Only applies to the {@link ContainerScope#TEST} scope.
+         */
+        public Builder prestartedContainers(int prestartedContainers) {
+            this.prestartedContainers = prestartedContainers;
+            return this;
+        }
+
+        /**
+         * Records how long each test spends starting and stopping its container and sending requests, and publishes
+         * the timings as report entries of the test. For a shared container, the start time is recorded by the first
+         * test to use it, also when the container was started before that test by a static registration.
+
+         */
+        public Builder timings() {
+            this.timings = true;
+            return this;
+        }
+
+        /**
+         * Records timings as {@link #timings()} does, and also writes the timings of every test in the run that reports
+         * to the same file when the run finishes. The file is written as JSON if its name ends with {@code .json},
+         * and as CSV otherwise.
+         */
+        public Builder timings(Path report) {
+            this.timings = true;
+            this.timingReport = report;
+            return this;
+        }
+
+        /**
+         * Only starts the container for a test when a Client, WebTarget, URI or LoadDriver is injected into it, or when
+         * the test is annotated with {@link RequiresContainer}. Tests that need neither skip starting and stopping the
+         * container altogether. Shared containers are started by the first test that needs them. The container can
+         * then only be injected into test methods and the methods run around them, not into constructors or
+         * {@code @BeforeAll} methods.
+         */
+        public Builder lazyStart() {
+            this.lazyStart = true;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs asynchronous and reactive requests sent by the injected Client, including those
+         * sent with {@link AsyncRequests}. One executor is created per container scope, or per test class when each
+         * test has a container of its own, and shut down when it ends.
+         */
+        public Builder asyncExecutor(Supplier<ExecutorService> asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Runs requests on virtual threads when the runtime supports them: those handled by a Grizzly container on the
+         * server side, and asynchronous requests sent by the injected Client unless an async executor is set.
+         * On older runtimes platform threads are used as usual.
+         */
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Sends request entities with chunked transfer encoding, in chunks of the given number of bytes, so that large
+         * entities such as those sent with {@link StreamingRequests} are streamed rather than buffered by the client.
+         * A client configuration function can still override this.
+         */
+        public Builder chunkedEncoding(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Builds the deployment context once per test class for the whole run, rather than before every test,
+         * and gives every container started for the class a copy of it. Use this when building the application is
+         * expensive, for example because it scans packages.
+         */
+        public Builder cacheDeployment() {
+            this.cacheDeployment = true;
+            return this;
+        }
+
+        /**
+         * Builds the deployment context once for the whole run and gives a copy of it to every container started by
+         * an extension that declares the same key, in any test class.
+         */
+        public Builder cacheDeployment(Object key) {
+            this.cacheDeployment = true;
+            this.deploymentCacheKey = key;
+            return this;
+        }
+
+        /**
+         * Starts containers on ports allocated from the given range, rather than on ephemeral ports, and publishes the
+         * port usage as report entries of each test. In-memory containers bind no port, so none is allocated or
+         * reported for them. When tests are run in several forked JVMs, set the {@code jersey.junit.forks} system
+         * property of each fork to the number of forks so that each fork allocates from a slice of the range of its own.
+         */
+        public Builder portRange(int fromPort, int toPort) {
+            this.fromPort = fromPort;
+            this.toPort = toPort;
+            return this;
+        }
+
+        /**
+         * Registers filters and an application event listener in the deployed application that profile each resource
+         * method, and injects the {@link ServerProfile} of each test. The application must be deployed from the
+         * ResourceConfig of the deployment context, rather than by a servlet configured with a class name.
+         */
+        public Builder profiling() {
+            this.profiling = true;
+            return this;
+        }
+
+        /**
+         * Records the responses received by the injected Client as snapshots in the given directory, and replays them
+         * in place of sending requests to the container, as the given mode allows. Snapshots are keyed by the request
+         * method, path, query and entity, so they can be replayed in later runs. A response is recorded once its
+         * entity has been read to the end.
+         */
+        public Builder responseSnapshots(Path directory, SnapshotMode mode) {
+            this.snapshotDirectory = directory;
+            this.snapshotMode = mode;
+            return this;
+        }
+
+        /**
+         * Injects the given faults between the injected Client and the deployed application, including any responses
+         * replayed from snapshots.
+         */
+        public Builder faults(Faults faults) {
+            this.faults = faults;
+            return this;
+        }
+
+        /**
+         * Checks that the live threads, open file descriptors and heap of the run don't grow beyond the thresholds of
+         * the given leak check as containers are started and stopped. Containers are checked when they stop, after
+         * each test or, with the CLASS and OUTERMOST_CLASS container scopes, after the scope's tests; containers
+         * shared with the SUITE scope or prestarted are not checked.
+         */
+        public Builder leakCheck(LeakCheck leakCheck) {
+            this.leakCheck = leakCheck;
+            return this;
+        }
+
+        /**
+         * Compresses entities with gzip in both directions, by registering the encoding filter and gzip encoder in the
+         * deployed application and in the client. A client configuration function can still override the client side.
+         * The application must be deployed from the ResourceConfig of the deployment context, rather than by a servlet
+         * configured with a class name.
+         */
+        public Builder gzip() {
+            this.gzip = true;
+            return this;
+        }
+
+        /**
+         * Counts the entity bytes sent and received by the injected Client, and injects the {@link PayloadSizes} of
+         * each test.
+         */
+        public Builder payloadSizes() {
+            this.payloadSizes = true;
+            return this;
+        }
+
+        /**
+         * Restores the state of every {@link Resettable} of the deployed application before each test that runs
+         * against a shared container, to the state captured when the container started. This isolates tests sharing
+         * a container without restarting it. The application must be deployed from the ResourceConfig of the
+         * deployment context, rather than by a servlet configured with a class name.
+         */
+        public Builder restoreState() {
+            this.restoreState = true;
+            return this;
+        }
+
+        private Builder declared() {
+            this.declared = true;
+            return this;
+        }
+
+        public JerseyExtension build() {
+            if (deploymentContextProvider == null) {
+                throw new IllegalStateException("An application or deployment context must be configured");
+            }
+            if (scope == null) {
+                throw new IllegalStateException("A container scope must be configured");
+            }
+            if (maxConnections < 0 || maxConnectionsPerRoute < 0 || maxConnectionsPerRoute > maxConnections) {
+                throw new IllegalStateException("The pooled connection limits must not be negative, and the limit per route must not exceed the total");
+            }
+            if ((fromPort != 0 || toPort != 0) && (fromPort < 1 || toPort > 65535 || fromPort > toPort)) {
+                throw new IllegalStateException("The port range must not be empty and must be within 1-65535");
+            }
+            if ((snapshotDirectory == null) != (snapshotMode == null)) {
+                throw new IllegalStateException("A snapshot directory and mode must be configured together");
+            }
+            if (chunkSize < 0) {
+                throw new IllegalStateException("The chunk size must not be negative");
+            }
+            if (restoreState && scope == ContainerScope.TEST) {
+                throw new IllegalStateException("State can only be restored for a shared container scope");
+            }
+            if (prestartedContainers < 0) {
+                throw new IllegalStateException("The number of prestarted containers must not be negative");
+            }
+            if (prestartedContainers > 0 && scope != ContainerScope.TEST) {
+                throw new IllegalStateException("Containers can only be prestarted for the TEST container scope");
+            }
+            return new JerseyExtension(this);
+        }
     }
 
 }
@@ -0,0 +1,63 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.ws.rs.core.Application;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers {@link JerseyExtension} for a test class and declares the application it deploys, as an alternative to
+ * registering the extension programmatically. Applies to the {@code @Nested} classes of the annotated class unless
+ * they declare an annotation of their own.
+ * <p>
+ * The annotation is resolved once per test class, and the deployment is built once for all classes declaring an
+ * identical annotation. With the {@link ContainerScope#SUITE} scope, those classes also share one container.
+ *
+ * <pre>{@code
+ * @JerseyTestApp(resources = DummyResource.class, scope = ContainerScope.SUITE)
+ * class DummyResourceTest {
+ *
+ *     @Test
+ *     void values_are_returned(WebTarget target) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+@ExtendWith(JerseyExtension.class)
+public @interface JerseyTestApp {
+
+    /**
+     * The application to deploy, created with its no-argument constructor. By default a ResourceConfig is deployed.
+     */
+    Class<? extends Application> application() default Application.class;
+
+    /**
+     * Resource and provider classes registered in addition to those of the application.
+     */
+    Class<?>[] resources() default {};
+
+    /**
+     * Packages scanned for resource and provider classes, including their subpackages.
+     */
+    String[] packages() default {};
+
+    /**
+     * The factory of the test container, created with its no-argument constructor. By default the factory chosen
+     * by the Jersey test framework is used.
+     */
+    Class<? extends TestContainerFactory> container() default TestContainerFactory.class;
+
+    ContainerScope scope() default ContainerScope.TEST;
+
+}
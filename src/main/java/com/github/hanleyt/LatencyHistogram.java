@@ -0,0 +1,80 @@
+package com.github.hanleyt;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The latencies recorded for a set of requests.
+ */
+public final class LatencyHistogram {
+
+    private final long[] sortedNanos;
+
+    LatencyHistogram(long[] nanos) {
+        this.sortedNanos = nanos.clone();
+        Arrays.sort(this.sortedNanos);
+    }
+
+    public int getCount() {
+        return sortedNanos.length;
+    }
+
+    public Duration getMin() {
+        return sortedNanos.length == 0 ? Duration.ZERO : Duration.ofNanos(sortedNanos[0]);
+    }
+
+    public Duration getMax() {
+        return sortedNanos.length == 0 ? Duration.ZERO : Duration.ofNanos(sortedNanos[sortedNanos.length - 1]);
+    }
+
+    public Duration getMean() {
+        return sortedNanos.length == 0 ? Duration.ZERO : Duration.ofNanos(Arrays.stream(sortedNanos).sum() / sortedNanos.length);
+    }
+
+    /**
+     * Returns the latency below or at which the given percentage of requests completed, using the nearest rank.
+     *
+     * @param percentile a percentage greater than 0 and at most 100, for example 99.9
+     */
+    public Duration getPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be greater than 0 and at most 100");
+        }
+        if (sortedNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length);
+        return Duration.ofNanos(sortedNanos[Math.max(rank, 1) - 1]);
+    }
+
+    /**
+     * Returns the number of requests in each bucket, keyed by the bucket's inclusive upper bound.
+     * Bucket bounds are powers of two microseconds.
+     */
+    public SortedMap<Duration, Integer> getBuckets() {
+        SortedMap<Duration, Integer> buckets = new TreeMap<>();
+        for (long nanos : sortedNanos) {
+            long micros = Math.max(1, (nanos + 999) / 1000);
+            long upperBoundMicros = Long.highestOneBit(micros);
+            if (upperBoundMicros < micros) {
+                upperBoundMicros <<= 1;
+            }
+            buckets.merge(Duration.ofNanos(upperBoundMicros * 1000), 1, Integer::sum);
+        }
+        return Collections.unmodifiableSortedMap(buckets);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{count=" + getCount()
+                + ", min=" + getMin()
+                + ", mean=" + getMean()
+                + ", p50=" + getPercentile(50)
+                + ", p99=" + getPercentile(99)
+                + ", max=" + getMax() + "}";
+    }
+
+}
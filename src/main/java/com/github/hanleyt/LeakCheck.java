@@ -0,0 +1,99 @@
+package com.github.hanleyt;
+
+import java.time.Duration;
+
+/**
+ * Thresholds for the growth of live threads, open file descriptors and heap across the container lifecycles of a run,
+ * checked by {@link JerseyExtension} after each container it stops. Growth is measured from a baseline taken after the
+ * first container of the run has stopped, so that resources created once per JVM by the first container, such as
+ * shared timer threads, are not counted. By default the growth is published as report entries and a warning is added
+ * when a threshold is exceeded, and heap is not checked.
+ *
+ * <pre>{@code
+ * LeakCheck leakCheck = new LeakCheck().threads(4).fileDescriptors(16).heap(64 * 1024 * 1024).failOnLeak();
+ * }</pre>
+ */
+public final class LeakCheck {
+
+    private int maxThreadGrowth = 8;
+    private long maxFileDescriptorGrowth = 32;
+    private long maxHeapGrowth = -1;
+    private Duration settleTime = Duration.ofSeconds(1);
+    private boolean failOnLeak;
+
+    /**
+     * Sets the number of live threads by which the run may grow.
+     */
+    public LeakCheck threads(int maxGrowth) {
+        if (maxGrowth < 0) {
+            throw new IllegalArgumentException("The thread growth must not be negative");
+        }
+        this.maxThreadGrowth = maxGrowth;
+        return this;
+    }
+
+    /**
+     * Sets the number of open file descriptors by which the run may grow. File descriptors are only counted on
+     * runtimes that can count them.
+     */
+    public LeakCheck fileDescriptors(long maxGrowth) {
+        if (maxGrowth < 0) {
+            throw new IllegalArgumentException("The file descriptor growth must not be negative");
+        }
+        this.maxFileDescriptorGrowth = maxGrowth;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes by which the used heap may grow. The heap is measured after requesting a garbage
+     * collection, which slows down every container stop.
+     */
+    public LeakCheck heap(long maxGrowthBytes) {
+        if (maxGrowthBytes < 0) {
+            throw new IllegalArgumentException("The heap growth must not be negative");
+        }
+        this.maxHeapGrowth = maxGrowthBytes;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait after a container has stopped for its threads to terminate and its sockets to close,
+     * before resources are counted.
+     */
+    public LeakCheck settleTime(Duration settleTime) {
+        if (settleTime.isNegative()) {
+            throw new IllegalArgumentException("The settle time must not be negative");
+        }
+        this.settleTime = settleTime;
+        return this;
+    }
+
+    /**
+     * Fails the test whose container stopped when a threshold is exceeded, rather than adding a warning.
+     */
+    public LeakCheck failOnLeak() {
+        this.failOnLeak = true;
+        return this;
+    }
+
+    int getMaxThreadGrowth() {
+        return maxThreadGrowth;
+    }
+
+    long getMaxFileDescriptorGrowth() {
+        return maxFileDescriptorGrowth;
+    }
+
+    long getMaxHeapGrowth() {
+        return maxHeapGrowth;
+    }
+
+    Duration getSettleTime() {
+        return settleTime;
+    }
+
+    boolean isFailOnLeak() {
+        return failOnLeak;
+    }
+
+}
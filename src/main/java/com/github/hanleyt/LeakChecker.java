@@ -0,0 +1,144 @@
+package com.github.hanleyt;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts the live threads, open file descriptors and used heap of the JVM around each container lifecycle, and checks
+ * their growth against the thresholds of a {@link LeakCheck}. The baseline is kept in the root store, so that it is
+ * shared by every extension of the run. When tests run concurrently, the resources of other tests are counted too.
+ */
+class LeakChecker {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(LeakChecker.class);
+    private static final long POLL_MILLIS = 10;
+
+    private final LeakCheck leakCheck;
+
+    LeakChecker(LeakCheck leakCheck) {
+        this.leakCheck = leakCheck;
+    }
+
+    /**
+     * Counts the resources before a container is started. The heap is only measured once the container has stopped.
+     */
+    static Snapshot beforeStart() {
+        return Snapshot.take();
+    }
+
+    /**
+     * Counts the resources once a container has stopped, publishes how much they grew during the test and since the
+     * baseline, and fails the test or adds a warning if a threshold is exceeded. The first container of the run to
+     * stop sets the baseline.
+     */
+    void afterStop(ExtensionContext context, Snapshot beforeStart) {
+        @SuppressWarnings("unchecked")
+        AtomicReference<Snapshot> baseline = context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(Snapshot.class, (unused) -> new AtomicReference<Snapshot>(), AtomicReference.class);
+        Snapshot snapshot = settle(baseline.get() == null ? beforeStart : baseline.get(), baseline.get() != null);
+        if (leakCheck.getMaxHeapGrowth() >= 0) {
+            snapshot = snapshot.withHeap();
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("jersey.leak.threads", String.valueOf(snapshot.threads - beforeStart.threads));
+        if (snapshot.fileDescriptors >= 0) {
+            entries.put("jersey.leak.fds", String.valueOf(snapshot.fileDescriptors - beforeStart.fileDescriptors));
+        }
+        if (baseline.compareAndSet(null, snapshot)) {
+            context.publishReportEntry(entries);
+            return;
+        }
+        Snapshot base = baseline.get();
+        List<String> leaks = new ArrayList<>();
+        long threadGrowth = snapshot.threads - base.threads;
+        entries.put("jersey.leak.threads.growth", String.valueOf(threadGrowth));
+        if (threadGrowth > leakCheck.getMaxThreadGrowth()) {
+            leaks.add(threadGrowth + " live threads");
+        }
+        if (snapshot.fileDescriptors >= 0 && base.fileDescriptors >= 0) {
+            long fileDescriptorGrowth = snapshot.fileDescriptors - base.fileDescriptors;
+            entries.put("jersey.leak.fds.growth", String.valueOf(fileDescriptorGrowth));
+            if (fileDescriptorGrowth > leakCheck.getMaxFileDescriptorGrowth()) {
+                leaks.add(fileDescriptorGrowth + " open file descriptors");
+            }
+        }
+        if (snapshot.heapBytes >= 0 && base.heapBytes >= 0) {
+            long heapGrowth = snapshot.heapBytes - base.heapBytes;
+            entries.put("jersey.leak.heap.growth.bytes", String.valueOf(heapGrowth));
+            if (heapGrowth > leakCheck.getMaxHeapGrowth()) {
+                leaks.add(heapGrowth + " bytes of heap");
+            }
+        }
+        String message = "The run grew by " + String.join(", ", leaks) + " since the first container stopped";
+        if (!leaks.isEmpty() && !leakCheck.isFailOnLeak()) {
+            entries.put("jersey.leak.warning", message);
+        }
+        context.publishReportEntry(entries);
+        if (!leaks.isEmpty() && leakCheck.isFailOnLeak()) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Waits for the counts to fall back within the thresholds of the given snapshot, or to the snapshot itself when
+     * no growth is allowed yet, until the settle time has elapsed.
+     */
+    private Snapshot settle(Snapshot target, boolean allowGrowth) {
+        long deadline = System.nanoTime() + leakCheck.getSettleTime().toNanos();
+        long maxThreads = target.threads + (allowGrowth ? leakCheck.getMaxThreadGrowth() : 0);
+        long maxFileDescriptors = target.fileDescriptors + (allowGrowth ? leakCheck.getMaxFileDescriptorGrowth() : 0);
+        Snapshot snapshot = Snapshot.take();
+        while ((snapshot.threads > maxThreads || snapshot.fileDescriptors > maxFileDescriptors) && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            snapshot = Snapshot.take();
+        }
+        return snapshot;
+    }
+
+    /**
+     * The resources of the JVM at one point in time. Counts that were not measured are -1.
+     */
+    static final class Snapshot {
+
+        private final int threads;
+        private final long fileDescriptors;
+        private final long heapBytes;
+
+        private Snapshot(int threads, long fileDescriptors, long heapBytes) {
+            this.threads = threads;
+            this.fileDescriptors = fileDescriptors;
+            this.heapBytes = heapBytes;
+        }
+
+        static Snapshot take() {
+            return new Snapshot(ManagementFactory.getThreadMXBean().getThreadCount(), openFileDescriptors(), -1);
+        }
+
+        Snapshot withHeap() {
+            System.gc();
+            return new Snapshot(threads, fileDescriptors, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+
+        private static long openFileDescriptors() {
+            OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+            if (operatingSystem instanceof com.sun.management.UnixOperatingSystemMXBean) {
+                return ((com.sun.management.UnixOperatingSystemMXBean) operatingSystem).getOpenFileDescriptorCount();
+            }
+            return -1;
+        }
+    }
+
+}
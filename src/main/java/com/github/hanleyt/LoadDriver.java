@@ -0,0 +1,140 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends a number of requests to the deployed application from concurrent threads and records their latencies.
+ * Injected by {@link JerseyExtension} as a test method parameter.
+ *
+ * <pre>{@code
+ * LoadResult result = loadDriver.path("values").requests(1000).concurrency(16).get();
+ * assertEquals(0, result.getErrors());
+ * }</pre>
+ */
+public final class LoadDriver {
+
+    private final WebTarget target;
+
+    LoadDriver(WebTarget target) {
+        this.target = target;
+    }
+
+    /**
+     * Starts configuring a load against the given path, relative to the base URI of the deployed application.
+     */
+    public Load path(String path) {
+        return new Load(target.path(path));
+    }
+
+    /**
+     * Starts configuring a load against the base URI of the deployed application.
+     */
+    public Load target() {
+        return new Load(target);
+    }
+
+    /**
+     * A load to be run against a target. By default one request is sent from a single thread.
+     */
+    public static final class Load {
+
+        private final WebTarget target;
+        private int requests = 1;
+        private int concurrency = 1;
+        private boolean virtualThreads;
+
+        private Load(WebTarget target) {
+            this.target = target;
+        }
+
+        public Load requests(int requests) {
+            if (requests < 1) {
+                throw new IllegalArgumentException("At least one request must be sent");
+            }
+            this.requests = requests;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests that are in flight at the same time.
+         */
+        public Load concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("The concurrency must be at least one");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sends requests from virtual threads when the runtime supports them, and from platform threads otherwise.
+         */
+        public Load virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        public LoadResult get() throws InterruptedException {
+            return run((webTarget) -> webTarget.request().get());
+        }
+
+        /**
+         * Sends every request using the given function, which must return the response to the request.
+         * A request fails if the function throws an exception or the response status is not successful.
+         */
+        public LoadResult run(Function<WebTarget, Response> request) throws InterruptedException {
+            ExecutorService executor = virtualThreads
+                    ? VirtualThreads.newVirtualThreadPerTaskExecutor().orElseGet(() -> Executors.newFixedThreadPool(concurrency))
+                    : Executors.newFixedThreadPool(concurrency);
+            long[] latencies = new long[requests];
+            AtomicInteger nextRequest = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            Map<Integer, Integer> statusCounts = new ConcurrentHashMap<>();
+            List<Future<?>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            try {
+                for (int i = 0; i < Math.min(concurrency, requests); i++) {
+                    workers.add(executor.submit(() -> {
+                        for (int index = nextRequest.getAndIncrement(); index < requests; index = nextRequest.getAndIncrement()) {
+                            long requestStart = System.nanoTime();
+                            try (Response response = request.apply(target)) {
+                                if (response.hasEntity()) {
+                                    response.readEntity(byte[].class);
+                                }
+                                statusCounts.merge(response.getStatus(), 1, Integer::sum);
+                                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                                    errors.incrementAndGet();
+                                }
+                            } catch (RuntimeException e) {
+                                errors.incrementAndGet();
+                            }
+                            latencies[index] = System.nanoTime() - requestStart;
+                        }
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A load worker failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            return new LoadResult(requests, errors.get(), statusCounts, duration, new LatencyHistogram(latencies));
+        }
+    }
+
+}
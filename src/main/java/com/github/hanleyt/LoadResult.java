@@ -0,0 +1,73 @@
+package com.github.hanleyt;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of a load run by a {@link LoadDriver}.
+ */
+public final class LoadResult {
+
+    private final int requests;
+    private final int errors;
+    private final Map<Integer, Integer> statusCounts;
+    private final Duration duration;
+    private final LatencyHistogram latencies;
+
+    LoadResult(int requests, int errors, Map<Integer, Integer> statusCounts, Duration duration, LatencyHistogram latencies) {
+        this.requests = requests;
+        this.errors = errors;
+        this.statusCounts = Collections.unmodifiableMap(statusCounts);
+        this.duration = duration;
+        this.latencies = latencies;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the number of requests that failed with an exception or a response status that is not successful.
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the number of responses received for each status code.
+     */
+    public Map<Integer, Integer> getStatusCounts() {
+        return statusCounts;
+    }
+
+    /**
+     * Returns the wall clock time taken to send all requests.
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the number of requests completed per second.
+     */
+    public double getThroughput() {
+        long nanos = duration.toNanos();
+        return nanos == 0 ? 0 : requests * 1_000_000_000.0 / nanos;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadResult{requests=" + requests
+                + ", errors=" + errors
+                + ", statusCounts=" + statusCounts
+                + ", duration=" + duration
+                + ", throughput=" + String.format("%.1f/s", getThroughput())
+                + ", latencies=" + latencies + "}";
+    }
+
+}
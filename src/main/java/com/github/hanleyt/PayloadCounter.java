@@ -0,0 +1,122 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the entity bytes sent and received by a client, and records them for the tests that are running.
+ * Interceptors on either side of the entity coders count the bytes as encoded on the wire and as seen by the
+ * application.
+ */
+class PayloadCounter implements Feature {
+
+    private final Set<PayloadSizes> runningTests = ConcurrentHashMap.newKeySet();
+
+    static Optional<PayloadCounter> of(Client client) {
+        return client.getConfiguration().getInstances().stream()
+                .filter(PayloadCounter.class::isInstance)
+                .map(PayloadCounter.class::cast)
+                .findFirst();
+    }
+
+    void start(PayloadSizes payloadSizes) {
+        runningTests.add(payloadSizes);
+    }
+
+    void stop(PayloadSizes payloadSizes) {
+        runningTests.remove(payloadSizes);
+    }
+
+    @Override
+    public boolean configure(FeatureContext context) {
+        context.register(new EncodedCountingInterceptor(), Priorities.ENTITY_CODER - 1);
+        context.register(new DecodedCountingInterceptor(), Priorities.ENTITY_CODER + 1);
+        return true;
+    }
+
+    /**
+     * Counts entity bytes in the stream it is given. Each priority has a class of its own, since a client only
+     * registers one instance of a class.
+     */
+    private abstract class CountingInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+        private final boolean encoded;
+
+        CountingInterceptor(boolean encoded) {
+            this.encoded = encoded;
+        }
+
+        @Override
+        public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+            context.setInputStream(new FilterInputStream(context.getInputStream()) {
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        runningTests.forEach(payloadSizes -> payloadSizes.addResponseBytes(encoded, 1));
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) {
+                        runningTests.forEach(payloadSizes -> payloadSizes.addResponseBytes(encoded, read));
+                    }
+                    return read;
+                }
+            });
+            return context.proceed();
+        }
+
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+            context.setOutputStream(new FilterOutputStream(context.getOutputStream()) {
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    runningTests.forEach(payloadSizes -> payloadSizes.addRequestBytes(encoded, 1));
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    runningTests.forEach(payloadSizes -> payloadSizes.addRequestBytes(encoded, len));
+                }
+            });
+            context.proceed();
+        }
+    }
+
+    private class EncodedCountingInterceptor extends CountingInterceptor {
+
+        EncodedCountingInterceptor() {
+            super(true);
+        }
+    }
+
+    private class DecodedCountingInterceptor extends CountingInterceptor {
+
+        DecodedCountingInterceptor() {
+            super(false);
+        }
+    }
+
+}
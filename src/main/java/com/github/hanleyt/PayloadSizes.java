@@ -0,0 +1,51 @@
+package com.github.hanleyt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The number of entity bytes sent and received by the injected Client during a test, both as written or read by the
+ * application and as encoded on the wire. The two only differ when entities are compressed, for example when the
+ * extension is built with {@link JerseyExtension.Builder#gzip()}. Injected by {@link JerseyExtension} as a test method
+ * parameter when the extension is built with {@link JerseyExtension.Builder#payloadSizes()}.
+ * <p>
+ * Response entities are counted as they are read. When tests sharing a client run concurrently, each of them counts
+ * the entities of all.
+ */
+public final class PayloadSizes {
+
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong encodedRequestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong encodedResponseBytes = new AtomicLong();
+
+    void addRequestBytes(boolean encoded, long bytes) {
+        (encoded ? encodedRequestBytes : requestBytes).addAndGet(bytes);
+    }
+
+    void addResponseBytes(boolean encoded, long bytes) {
+        (encoded ? encodedResponseBytes : responseBytes).addAndGet(bytes);
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    public long getEncodedRequestBytes() {
+        return encodedRequestBytes.get();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    public long getEncodedResponseBytes() {
+        return encodedResponseBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PayloadSizes{requestBytes=" + requestBytes + ", encodedRequestBytes=" + encodedRequestBytes
+                + ", responseBytes=" + responseBytes + ", encodedResponseBytes=" + encodedResponseBytes + "}";
+    }
+
+}
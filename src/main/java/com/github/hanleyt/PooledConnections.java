@@ -0,0 +1,90 @@
+package com.github.hanleyt;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.HttpUrlConnectorProvider;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.ws.rs.client.Client;
+
+/**
+ * A pool of keep-alive connections shared by the clients created for a container scope. Uses the Apache connector
+ * when {@code jersey-apache-connector} is on the classpath, and otherwise relies on the keep-alive connections of the
+ * default connector, which are pooled by the JDK.
+ */
+class PooledConnections implements ExtensionContext.Store.CloseableResource {
+
+    private static final boolean APACHE_CONNECTOR_AVAILABLE = isClassAvailable("org.glassfish.jersey.apache.connector.ApacheConnectorProvider");
+
+    private final Object connectionManager;
+
+    PooledConnections(int maxConnections, int maxConnectionsPerRoute) {
+        connectionManager = APACHE_CONNECTOR_AVAILABLE ? ApacheConnections.createConnectionManager(maxConnections, maxConnectionsPerRoute) : null;
+    }
+
+    /**
+     * Installs the pooled connector, unless the test container has already chosen a connector of its own,
+     * such as the in-memory connector.
+     */
+    void configure(ClientConfig config) {
+        if (connectionManager != null && config.getConnectorProvider() instanceof HttpUrlConnectorProvider) {
+            ApacheConnections.configure(config, connectionManager);
+        }
+    }
+
+    /**
+     * Whether the client connects over the network rather than to a particular container instance,
+     * so that it can be used for any container.
+     */
+    static boolean isReusable(Client client) {
+        Object connectorProvider = ((ClientConfig) client.getConfiguration()).getConnectorProvider();
+        return connectorProvider instanceof HttpUrlConnectorProvider
+                || (APACHE_CONNECTOR_AVAILABLE && ApacheConnections.isApacheConnector(connectorProvider));
+    }
+
+    @Override
+    public void close() {
+        if (connectionManager != null) {
+            ApacheConnections.close(connectionManager);
+        }
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, PooledConnections.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Kept apart so that the Apache classes are only loaded when they are on the classpath.
+     */
+    private static class ApacheConnections {
+
+        static Object createConnectionManager(int maxConnections, int maxConnectionsPerRoute) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            return connectionManager;
+        }
+
+        static void configure(ClientConfig config, Object connectionManager) {
+            config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+            config.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+            config.connectorProvider(new ApacheConnectorProvider());
+        }
+
+        static boolean isApacheConnector(Object connectorProvider) {
+            return connectorProvider instanceof ApacheConnectorProvider;
+        }
+
+        static void close(Object connectionManager) {
+            ((PoolingHttpClientConnectionManager) connectionManager).close();
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Allocates container ports from a range for the whole run. When the run is split across forked test JVMs and the
+ * number of forks is given by the {@value #FORKS_PROPERTY} system property, each fork allocates from a slice of the
+ * range of its own. A fork claims its slice by keeping a socket bound on the first port of the slice for as long as
+ * it runs, trying first the slice its Gradle test worker id points to. Worker ids keep growing over the lifetime of a
+ * Gradle daemon, so they alone cannot tell forks apart, while a bound port is released as soon as its fork exits.
+ * When every slice has been claimed, or the number of forks is not given, each fork starts allocating at a different
+ * point of the whole range.
+ * <p>
+ * Ports are handed out in rotation, so that a port released by a stopped container is not reused while its
+ * connections may still be in TIME_WAIT, and a port is only handed out if it can be bound.
+ */
+class PortAllocator {
+
+    static final String FORKS_PROPERTY = "jersey.junit.forks";
+    private static final String GRADLE_WORKER_PROPERTY = "org.gradle.test.worker";
+
+    private final int firstPort;
+    private final int size;
+    // referenced so that the claim lasts as long as the fork
+    private final ServerSocket sliceClaim;
+    private final Set<Integer> inUse = new HashSet<>();
+    private int next;
+    private int allocations;
+    private int peakInUse;
+
+    PortAllocator(int fromPort, int toPort, long forkId, int forks) {
+        int rangeSize = toPort - fromPort + 1;
+        int slice = forks > 1 ? rangeSize / forks : 0;
+        ServerSocket claim = null;
+        int claimedSlice = 0;
+        for (int i = 0; slice > 1 && claim == null && i < forks; i++) {
+            claimedSlice = (int) ((forkId + i) % forks);
+            claim = bind(fromPort + claimedSlice * slice);
+        }
+        this.sliceClaim = claim;
+        if (claim != null) {
+            this.firstPort = fromPort + claimedSlice * slice + 1;
+            this.size = slice - 1;
+            this.next = 0;
+        } else {
+            this.firstPort = fromPort;
+            this.size = rangeSize;
+            this.next = (int) ((forkId * 7919) % rangeSize);
+        }
+    }
+
+    static PortAllocator get(ExtensionContext context, int fromPort, int toPort) {
+        return context.getRoot().getStore(ExtensionContext.Namespace.create(PortAllocator.class))
+                .getOrComputeIfAbsent(Arrays.asList(fromPort, toPort),
+                        (unused) -> new PortAllocator(fromPort, toPort, getForkId(), Integer.getInteger(FORKS_PROPERTY, 0)),
+                        PortAllocator.class);
+    }
+
+    private static long getForkId() {
+        try {
+            return Math.abs(Long.parseLong(System.getProperty(GRADLE_WORKER_PROPERTY, "0")));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the next port of the range that is neither in use by a container of this run nor bound by another process.
+     */
+    synchronized int allocate() {
+        for (int attempt = 0; attempt < size; attempt++) {
+            int port = firstPort + next;
+            next = (next + 1) % size;
+            if (!inUse.contains(port) && isBindable(port)) {
+                inUse.add(port);
+                allocations++;
+                peakInUse = Math.max(peakInUse, inUse.size());
+                return port;
+            }
+        }
+        throw new TestContainerException("No free port in the range " + firstPort + "-" + (firstPort + size - 1)
+                + ", " + inUse.size() + " ports are in use by this run");
+    }
+
+    synchronized void release(int port) {
+        inUse.remove(port);
+    }
+
+    synchronized int getInUse() {
+        return inUse.size();
+    }
+
+    synchronized int getPeakInUse() {
+        return peakInUse;
+    }
+
+    synchronized int getAllocations() {
+        return allocations;
+    }
+
+    private static boolean isBindable(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Binds the given port, returning null if it is bound by another fork or process.
+     */
+    private static ServerSocket bind(int port) {
+        ServerSocket socket = null;
+        try {
+            socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return socket;
+        } catch (IOException e) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // the socket was never bound
+                }
+            }
+            return null;
+        }
+    }
+
+}
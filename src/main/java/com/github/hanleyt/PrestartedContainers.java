@@ -0,0 +1,143 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.test.JerseyTest;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.annotation.Testable;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.junit.platform.commons.support.ReflectionSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a fixed number of test containers starting or started on background threads, so that a test only has to wait
+ * for a container when it runs faster than containers can be started. Used containers are stopped in the background.
+ * <p>
+ * No more containers are started than the test class has test methods, so that a class with few tests does not start
+ * containers it will never use. Should more tests run than were counted, as with repeated and parameterized tests,
+ * their containers are started when they are taken. Containers that fail to stop are reported when the class closes.
+ */
+class PrestartedContainers implements ExtensionContext.Store.CloseableResource {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Callable<JerseyTest> starter;
+    private final ExecutorService executor;
+    private final Queue<Future<JerseyTest>> containers = new ConcurrentLinkedQueue<>();
+    private final List<JerseyTest> started = new ArrayList<>();
+    private final Queue<Exception> tearDownFailures = new ConcurrentLinkedQueue<>();
+    private int remaining;
+    private boolean closed;
+
+    PrestartedContainers(int count, Class<?> testClass, Callable<JerseyTest> starter) {
+        this.starter = starter;
+        this.executor = Executors.newFixedThreadPool(count, daemonThreadFactory());
+        this.remaining = countTests(testClass);
+        for (int i = 0; i < count; i++) {
+            startIfRemaining();
+        }
+    }
+
+    JerseyTest take() throws Exception {
+        Future<JerseyTest> container = containers.poll();
+        if (container == null) {
+            container = executor.submit(this::start);
+        }
+        startIfRemaining();
+        try {
+            JerseyTest jerseyTest = container.get();
+            synchronized (this) {
+                started.remove(jerseyTest);
+            }
+            return jerseyTest;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    void recycle(JerseyTest jerseyTest) {
+        executor.execute(() -> tearDown(jerseyTest));
+    }
+
+    /**
+     * Stops the containers that were started but not taken. Containers still starting are stopped by their own
+     * thread once they have started, and those that were not starting yet are never started.
+     */
+    @Override
+    public void close() throws Exception {
+        List<JerseyTest> unused;
+        synchronized (this) {
+            closed = true;
+            unused = new ArrayList<>(started);
+            started.clear();
+        }
+        executor.shutdown();
+        unused.forEach(this::tearDown);
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        if (!tearDownFailures.isEmpty()) {
+            IllegalStateException exception = new IllegalStateException(tearDownFailures.size() + " prestarted containers failed to stop");
+            tearDownFailures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private synchronized void startIfRemaining() {
+        if (remaining > 0 && !closed) {
+            remaining--;
+            containers.add(executor.submit(this::start));
+        }
+    }
+
+    private JerseyTest start() throws Exception {
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+        }
+        JerseyTest jerseyTest = starter.call();
+        synchronized (this) {
+            if (!closed) {
+                started.add(jerseyTest);
+                return jerseyTest;
+            }
+        }
+        tearDown(jerseyTest);
+        return null;
+    }
+
+    /**
+     * Stops a container, keeping any failure to report when the class closes rather than failing an unrelated test.
+     */
+    private void tearDown(JerseyTest jerseyTest) {
+        try {
+            jerseyTest.tearDown();
+        } catch (Exception e) {
+            tearDownFailures.add(e);
+        }
+    }
+
+    private static int countTests(Class<?> testClass) {
+        return ReflectionSupport.findMethods(testClass, method -> AnnotationSupport.isAnnotated(method, Testable.class),
+                HierarchyTraversalMode.TOP_DOWN).size();
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "jersey-junit-prestart-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.model.Invocable;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Profiles the resource methods of a deployed application, and records the profiles for the tests that are running.
+ * Request and response filters time each request, and an application event listener times each invocation of a
+ * resource method and estimates its allocations.
+ * <p>
+ * The feature is registered once in the ResourceConfig of a deployment, and passed to the clients of its containers
+ * as a property so that tests can find it.
+ */
+class ProfilingFeature implements Feature {
+
+    private static final String PROPERTY = ProfilingFeature.class.getName();
+    private static final String START_PROPERTY = ProfilingFeature.class.getName() + ".start";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Set<ServerProfile> runningTests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the feature registered in the given ResourceConfig, registering one if there is none yet.
+     */
+    static ProfilingFeature register(ResourceConfig resourceConfig) {
+        synchronized (resourceConfig) {
+            Optional<ProfilingFeature> registered = resourceConfig.getInstances().stream()
+                    .filter(ProfilingFeature.class::isInstance)
+                    .map(ProfilingFeature.class::cast)
+                    .findFirst();
+            if (registered.isPresent()) {
+                return registered.get();
+            }
+            ProfilingFeature profilingFeature = new ProfilingFeature();
+            resourceConfig.register(profilingFeature);
+            return profilingFeature;
+        }
+    }
+
+    static Optional<ProfilingFeature> of(Client client) {
+        Object property = client.getConfiguration().getProperty(PROPERTY);
+        return property instanceof ProfilingFeature ? Optional.of((ProfilingFeature) property) : Optional.empty();
+    }
+
+    /**
+     * Passes the feature to a client of a container of the deployment.
+     */
+    void configure(ClientConfig config) {
+        config.property(PROPERTY, this);
+    }
+
+    void start(ServerProfile profile) {
+        runningTests.add(profile);
+    }
+
+    void stop(ServerProfile profile) {
+        runningTests.remove(profile);
+    }
+
+    @Override
+    public boolean configure(FeatureContext context) {
+        context.register(new ProfilingFilter());
+        context.register(new ProfilingListener());
+        return true;
+    }
+
+    private static String nameOf(ResourceMethod resourceMethod) {
+        Invocable invocable = resourceMethod.getInvocable();
+        return resourceMethod.getHttpMethod() + " " + invocable.getHandler().getHandlerClass().getSimpleName()
+                + "." + invocable.getHandlingMethod().getName();
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the runtime cannot measure them.
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @PreMatching
+    private class ProfilingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+        @Override
+        public void filter(ContainerRequestContext requestContext) {
+            requestContext.setProperty(START_PROPERTY, System.nanoTime());
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+            Object start = requestContext.getProperty(START_PROPERTY);
+            ResourceMethod resourceMethod = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedResourceMethod();
+            if (start instanceof Long && resourceMethod != null) {
+                long nanos = System.nanoTime() - (Long) start;
+                String name = nameOf(resourceMethod);
+                runningTests.forEach(profile -> profile.getOrCreate(name).recordRequest(nanos));
+            }
+        }
+    }
+
+    private class ProfilingListener implements ApplicationEventListener {
+
+        @Override
+        public void onEvent(ApplicationEvent event) {
+        }
+
+        @Override
+        public RequestEventListener onRequest(RequestEvent requestEvent) {
+            return runningTests.isEmpty() ? null : new InvocationListener();
+        }
+    }
+
+    private class InvocationListener implements RequestEventListener {
+
+        private long start;
+        private long startAllocatedBytes;
+
+        @Override
+        public void onEvent(RequestEvent event) {
+            if (event.getType() == RequestEvent.Type.RESOURCE_METHOD_START) {
+                startAllocatedBytes = currentThreadAllocatedBytes();
+                start = System.nanoTime();
+            } else if (event.getType() == RequestEvent.Type.RESOURCE_METHOD_FINISHED) {
+                long nanos = System.nanoTime() - start;
+                long endAllocatedBytes = currentThreadAllocatedBytes();
+                long allocatedBytes = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+                String name = nameOf(event.getUriInfo().getMatchedResourceMethod());
+                runningTests.forEach(profile -> profile.getOrCreate(name).recordInvocation(nanos, allocatedBytes));
+            }
+        }
+    }
+
+}
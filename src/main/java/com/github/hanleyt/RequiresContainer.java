@@ -0,0 +1,20 @@
+package com.github.hanleyt;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Starts the container before a test even when {@link JerseyExtension} is built to start it lazily,
+ * for tests that use the container without having a Client, WebTarget, URI or LoadDriver injected.
+ * May be declared on a test method, or on a test class to apply to all of its test methods.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface RequiresContainer {
+}
@@ -0,0 +1,40 @@
+package com.github.hanleyt;
+
+/**
+ * State held by a deployed application that {@link JerseyExtension} restores before each test when it is built with
+ * {@link JerseyExtension.Builder#restoreState()}, so that tests sharing a container start from the same state without
+ * the container being restarted. Implemented by singleton resources and providers registered as instances in the
+ * ResourceConfig, and by injectable services bound to this contract.
+ *
+ * <pre>{@code
+ * @Path("/counter")
+ * public class CounterResource implements Resettable<Integer> {
+ *
+ *     private final AtomicInteger count = new AtomicInteger();
+ *
+ *     public Integer snapshot() {
+ *         return count.get();
+ *     }
+ *
+ *     public void restore(Integer snapshot) {
+ *         count.set(snapshot);
+ *     }
+ *     ...
+ * }
+ * }</pre>
+ *
+ * @param <S> the type of the captured state
+ */
+public interface Resettable<S> {
+
+    /**
+     * Captures the current state. Called once, when the application of the container has been initialized.
+     */
+    S snapshot();
+
+    /**
+     * Restores the state captured by {@link #snapshot()}. Called before each test that runs against the container.
+     */
+    void restore(S snapshot);
+
+}
@@ -0,0 +1,76 @@
+package com.github.hanleyt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The server time spent on a resource method during a test, as recorded by a {@link ServerProfile}.
+ */
+public final class ResourceMethodProfile {
+
+    private final List<Long> requestNanos = new ArrayList<>();
+    private final List<Long> invocationNanos = new ArrayList<>();
+    private long allocatedBytes;
+    private boolean allocationsMeasured = true;
+
+    synchronized void recordRequest(long nanos) {
+        requestNanos.add(nanos);
+    }
+
+    synchronized void recordInvocation(long nanos, long allocatedBytes) {
+        invocationNanos.add(nanos);
+        if (allocatedBytes < 0) {
+            allocationsMeasured = false;
+        } else {
+            this.allocatedBytes += allocatedBytes;
+        }
+    }
+
+    public synchronized int getInvocations() {
+        return invocationNanos.size();
+    }
+
+    /**
+     * Returns the time the server took for each request, from the first request filter to the last response filter.
+     */
+    public synchronized LatencyHistogram getLatencies() {
+        return new LatencyHistogram(toArray(requestNanos));
+    }
+
+    /**
+     * Returns the time taken by each invocation of the resource method itself.
+     */
+    public synchronized LatencyHistogram getInvocationLatencies() {
+        return new LatencyHistogram(toArray(invocationNanos));
+    }
+
+    /**
+     * Returns an estimate of the bytes allocated by all invocations of the resource method, measured on the thread
+     * that invoked it, or -1 if the runtime cannot measure allocations on that thread.
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocationsMeasured ? allocatedBytes : -1;
+    }
+
+    /**
+     * Returns the estimated bytes allocated per invocation, or -1 if allocations could not be measured.
+     */
+    public synchronized long getAllocatedBytesPerInvocation() {
+        if (!allocationsMeasured) {
+            return -1;
+        }
+        return invocationNanos.isEmpty() ? 0 : allocatedBytes / invocationNanos.size();
+    }
+
+    private static long[] toArray(List<Long> nanos) {
+        return nanos.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceMethodProfile{invocations=" + getInvocations()
+                + ", latencies=" + getLatencies()
+                + ", allocatedBytesPerInvocation=" + getAllocatedBytesPerInvocation() + "}";
+    }
+
+}
@@ -0,0 +1,319 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the responses received by a client to files in a directory, and replays them in place of sending requests.
+ * A snapshot is keyed by the request method, the path and query of the request URI and a hash of the serialized
+ * request entity, so snapshots can be replayed against containers on other ports and in later runs. Computing the key
+ * serializes the request entity once more before it is sent, with its message body writer alone, so that the writer
+ * interceptors of the client, such as those counting or throttling the entity, only see it once. Requests with a
+ * streamed entity are always sent, since hashing their entity would consume it.
+ * <p>
+ * Each snapshot is a gzipped binary file holding the status, the response headers and the response entity. The entity
+ * is written to the snapshot as the client reads it, rather than buffered, so a response is only recorded once its
+ * entity has been read to the end. Responses whose entity is closed before, such as endless streams, are not recorded.
+ */
+class ResponseSnapshots {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".snapshot";
+
+    private final Path directory;
+    private final SnapshotMode mode;
+
+    ResponseSnapshots(Path directory, SnapshotMode mode) {
+        this.directory = directory;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns a connector provider that records and replays the responses of the connectors of the given provider.
+     */
+    ConnectorProvider wrap(ConnectorProvider connectorProvider) {
+        return (client, configuration) -> new SnapshotConnector(connectorProvider.getConnector(client, configuration));
+    }
+
+    private static String keyOf(ClientRequest request) throws IOException {
+        MessageDigest digest = newDigest();
+        URI uri = request.getUri();
+        digest.update((request.getMethod() + " " + uri.getRawPath() + "?" + uri.getRawQuery() + "\n").getBytes(StandardCharsets.UTF_8));
+        if (request.hasEntity()) {
+            OutputStream digestStream = new OutputStream() {
+
+                @Override
+                public void write(int b) {
+                    digest.update((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    digest.update(b, off, len);
+                }
+            };
+            request.getWorkers().writeTo(request.getEntity(), request.getEntityClass(), request.getEntityType(),
+                    request.getEntityAnnotations(), request.getMediaType(), new MultivaluedHashMap<>(request.getHeaders()),
+                    new MapPropertiesDelegate(), digestStream, Collections.emptyList());
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the status and headers of a snapshot, and leaves the rest of the snapshot to be read as the entity.
+     */
+    private ClientResponse read(Path snapshot, ClientRequest request) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(snapshot)));
+        try {
+            if (in.readInt() != FORMAT_VERSION) {
+                in.close();
+                return null;
+            }
+            int status = in.readInt();
+            String reasonPhrase = in.readUTF();
+            ClientResponse response = new ClientResponse(Statuses.from(status, reasonPhrase), request);
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                for (int j = 0; j < valueCount; j++) {
+                    response.getHeaders().add(name, in.readUTF());
+                }
+            }
+            response.setEntityStream(in);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the response is known to have no entity, so that it is complete even if its entity is never read.
+     */
+    private static boolean hasNoEntity(ClientRequest request, ClientResponse response) {
+        return "HEAD".equals(request.getMethod()) || response.getStatus() == 204 || response.getStatus() == 304
+                || "0".equals(response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    private class SnapshotConnector implements Connector {
+
+        private final Connector delegate;
+
+        SnapshotConnector(Connector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            if (request.getEntity() instanceof InputStream) {
+                return delegate.apply(request);
+            }
+            try {
+                Path snapshot = directory.resolve(keyOf(request) + SUFFIX);
+                if (mode != SnapshotMode.RECORD) {
+                    ClientResponse replayed = readIfPresent(snapshot, request);
+                    if (replayed != null) {
+                        return replayed;
+                    }
+                    if (mode == SnapshotMode.REPLAY_ONLY) {
+                        throw new ProcessingException("No response snapshot for " + request.getMethod() + " " + request.getUri());
+                    }
+                }
+                ClientResponse response = delegate.apply(request);
+                InputStream entity = response.getEntityStream() == null
+                        ? new ByteArrayInputStream(new byte[0])
+                        : response.getEntityStream();
+                response.setEntityStream(new RecordingInputStream(entity, snapshot, response, hasNoEntity(request, response)));
+                return response;
+            } catch (IOException e) {
+                throw new ProcessingException("Failed to record or replay the response snapshot", e);
+            }
+        }
+
+        private ClientResponse readIfPresent(Path snapshot, ClientRequest request) throws IOException {
+            try {
+                return read(snapshot, request);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+            try {
+                callback.response(apply(request));
+            } catch (ProcessingException e) {
+                callback.failure(e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Copies a response entity to a temporary snapshot file as it is read, and moves the file in place of the snapshot
+     * once the entity has been read to the end. The file is deleted if the entity is closed before.
+     */
+    private class RecordingInputStream extends FilterInputStream {
+
+        private final Path snapshot;
+        private final Path temporary;
+        private final DataOutputStream out;
+        private final boolean noEntity;
+        private boolean done;
+
+        RecordingInputStream(InputStream in, Path snapshot, ClientResponse response, boolean noEntity) throws IOException {
+            super(in);
+            this.snapshot = snapshot;
+            this.noEntity = noEntity;
+            Files.createDirectories(directory);
+            this.temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+            this.out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary)));
+            try {
+                writeStatusAndHeaders(response);
+            } catch (IOException e) {
+                discard();
+                throw e;
+            }
+        }
+
+        private void writeStatusAndHeaders(ClientResponse response) throws IOException {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(response.getStatus());
+            out.writeUTF(response.getStatusInfo().getReasonPhrase() == null ? "" : response.getStatusInfo().getReasonPhrase());
+            // The entity is replayed from the snapshot file, so the framing headers of the recorded response no longer apply.
+            Map<String, List<String>> headers = new LinkedHashMap<>(response.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove("Transfer-Encoding");
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                complete();
+            } else if (!done) {
+                out.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                complete();
+            } else if (!done) {
+                out.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipped = new byte[(int) Math.min(n, 8192)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (noEntity) {
+                    complete();
+                } else {
+                    discard();
+                }
+            }
+        }
+
+        private void complete() throws IOException {
+            if (!done) {
+                done = true;
+                out.close();
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        private void discard() throws IOException {
+            if (!done) {
+                done = true;
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.github.hanleyt;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where the deployed application spent its time during a test, per resource method. Resource methods are named by
+ * their HTTP method, the simple name of their resource class and the name of the Java method, for example
+ * {@code GET DummyResource.get}. Injected by {@link JerseyExtension} as a test method parameter when the extension
+ * is built with {@link JerseyExtension.Builder#profiling()}.
+ * <p>
+ * When tests sharing a container run concurrently, each of them records the requests of all.
+ */
+public final class ServerProfile {
+
+    private final Map<String, ResourceMethodProfile> resourceMethods = new ConcurrentHashMap<>();
+
+    ResourceMethodProfile getOrCreate(String resourceMethod) {
+        return resourceMethods.computeIfAbsent(resourceMethod, (unused) -> new ResourceMethodProfile());
+    }
+
+    /**
+     * Returns the profiles of the resource methods that were invoked, sorted by name.
+     */
+    public Map<String, ResourceMethodProfile> getResourceMethods() {
+        return Collections.unmodifiableMap(new TreeMap<>(resourceMethods));
+    }
+
+    public Optional<ResourceMethodProfile> getResourceMethod(String resourceMethod) {
+        return Optional.ofNullable(resourceMethods.get(resourceMethod));
+    }
+
+    @Override
+    public String toString() {
+        return "ServerProfile" + getResourceMethods();
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.github.hanleyt;
+
+/**
+ * Controls how the client created by {@link JerseyExtension} uses response snapshots.
+ */
+public enum SnapshotMode {
+
+    /**
+     * Every request is sent to the container, and its response is recorded, replacing any previous snapshot.
+     */
+    RECORD,
+
+    /**
+     * Requests with a snapshot are answered from it without reaching the container. Other requests are sent to the
+     * container and their responses are recorded.
+     */
+    REPLAY,
+
+    /**
+     * Requests with a snapshot are answered from it without reaching the container. Other requests fail, so that a
+     * regression run never reaches slow resources.
+     */
+    REPLAY_ONLY
+
+}
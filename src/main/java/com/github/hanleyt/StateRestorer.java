@@ -0,0 +1,143 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.InjectionManagerProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.internal.inject.InjectionManager;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Captures the state of every {@link Resettable} of a deployed application once the application has been initialized,
+ * and restores it on demand. The resettables are found through the injection manager of the application, among the
+ * services bound to the Resettable contract and the instances registered in its configuration. The state is captured
+ * when the application reports that it has been initialized, rather than when its container reports that it has
+ * started, since containers such as the in-memory one neither report their startup nor their shutdown.
+ * <p>
+ * The restorer is registered once in the ResourceConfig of a deployment, and passed to the clients of its containers
+ * as a property so that tests can find it. When several containers are started for one deployment, the state of all
+ * of them is restored.
+ */
+class StateRestorer implements Feature {
+
+    private static final String PROPERTY = StateRestorer.class.getName();
+
+    private final Map<InjectionManager, List<Captured<?>>> captured = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the restorer registered in the given ResourceConfig, registering one if there is none yet.
+     */
+    static StateRestorer register(ResourceConfig resourceConfig) {
+        synchronized (resourceConfig) {
+            Optional<StateRestorer> registered = resourceConfig.getInstances().stream()
+                    .filter(StateRestorer.class::isInstance)
+                    .map(StateRestorer.class::cast)
+                    .findFirst();
+            if (registered.isPresent()) {
+                return registered.get();
+            }
+            StateRestorer stateRestorer = new StateRestorer();
+            resourceConfig.register(stateRestorer);
+            return stateRestorer;
+        }
+    }
+
+    static Optional<StateRestorer> of(Client client) {
+        Object property = client.getConfiguration().getProperty(PROPERTY);
+        return property instanceof StateRestorer ? Optional.of((StateRestorer) property) : Optional.empty();
+    }
+
+    /**
+     * Passes the restorer to a client of a container of the deployment.
+     */
+    void configure(ClientConfig config) {
+        config.property(PROPERTY, this);
+    }
+
+    /**
+     * Restores the state captured when the application of each running container of the deployment was initialized.
+     */
+    void restore() {
+        captured.values().forEach(resettables -> resettables.forEach(Captured::restore));
+    }
+
+    @Override
+    public boolean configure(FeatureContext context) {
+        context.register(new CaptureListener(InjectionManagerProvider.getInjectionManager(context)));
+        return true;
+    }
+
+    private static List<Captured<?>> capture(InjectionManager injectionManager, ApplicationEvent event) {
+        Set<Object> resettables = Collections.newSetFromMap(new IdentityHashMap<>());
+        resettables.addAll(injectionManager.getAllInstances(Resettable.class));
+        event.getRegisteredInstances().stream()
+                .filter(Resettable.class::isInstance)
+                .forEach(resettables::add);
+        List<Captured<?>> captured = new ArrayList<>();
+        for (Object resettable : resettables) {
+            captured.add(Captured.of((Resettable<?>) resettable));
+        }
+        return captured;
+    }
+
+    /**
+     * Listens to the application of a single container, since the feature is configured again with the injection
+     * manager of each application started from the deployment.
+     */
+    private class CaptureListener implements ApplicationEventListener {
+
+        private final InjectionManager injectionManager;
+
+        CaptureListener(InjectionManager injectionManager) {
+            this.injectionManager = injectionManager;
+        }
+
+        @Override
+        public void onEvent(ApplicationEvent event) {
+            if (event.getType() == ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+                captured.put(injectionManager, capture(injectionManager, event));
+            } else if (event.getType() == ApplicationEvent.Type.DESTROY_FINISHED) {
+                captured.remove(injectionManager);
+            }
+        }
+
+        @Override
+        public RequestEventListener onRequest(RequestEvent requestEvent) {
+            return null;
+        }
+    }
+
+    private static final class Captured<S> {
+
+        private final Resettable<S> resettable;
+        private final S snapshot;
+
+        private Captured(Resettable<S> resettable, S snapshot) {
+            this.resettable = resettable;
+            this.snapshot = snapshot;
+        }
+
+        static <S> Captured<S> of(Resettable<S> resettable) {
+            return new Captured<>(resettable, resettable.snapshot());
+        }
+
+        void restore() {
+            resettable.restore(snapshot);
+        }
+    }
+
+}
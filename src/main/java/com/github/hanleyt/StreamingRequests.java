@@ -0,0 +1,139 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Sends and receives large entities as streams, so that transfers of any size run in constant memory.
+ * Request entities are only streamed if the client sends them chunked, which can be configured with
+ * {@link JerseyExtension.Builder#chunkedEncoding}. Injected by {@link JerseyExtension} as a test method parameter.
+ *
+ * <pre>{@code
+ * Response response = streamingRequests.upload("files", StreamingRequests.generate(500_000_000L));
+ * TransferResult download = streamingRequests.download("files/latest");
+ * }</pre>
+ */
+public final class StreamingRequests {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final WebTarget target;
+
+    StreamingRequests(WebTarget target) {
+        this.target = target;
+    }
+
+    /**
+     * Posts the given stream to the given path as an octet stream. The stream is closed once it has been sent.
+     */
+    public Response upload(String path, InputStream body) {
+        return target.path(path).request().post(Entity.entity(body, MediaType.APPLICATION_OCTET_STREAM_TYPE));
+    }
+
+    /**
+     * Posts the contents of the given file to the given path as an octet stream.
+     */
+    public Response upload(String path, Path file) throws IOException {
+        return upload(path, Files.newInputStream(file));
+    }
+
+    /**
+     * Gets the entity at the given path and consumes it chunk by chunk.
+     *
+     * @throws javax.ws.rs.WebApplicationException if the response status is not successful
+     */
+    public TransferResult download(String path) throws IOException {
+        return consume(target.path(path).request().get(InputStream.class));
+    }
+
+    /**
+     * Consumes the entity of the given response chunk by chunk, and closes the response.
+     */
+    public static TransferResult consume(Response response) throws IOException {
+        try (Response closed = response) {
+            return consume(closed.readEntity(InputStream.class));
+        }
+    }
+
+    /**
+     * Reads the given stream chunk by chunk, counting and checksumming the bytes read, and closes it.
+     */
+    public static TransferResult consume(InputStream in) throws IOException {
+        CRC32 checksum = new CRC32();
+        long bytes = 0;
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream closed = in) {
+            for (int read = closed.read(chunk); read != -1; read = closed.read(chunk)) {
+                checksum.update(chunk, 0, read);
+                bytes += read;
+            }
+        }
+        return new TransferResult(bytes, checksum.getValue());
+    }
+
+    /**
+     * Returns a stream of the given number of pseudo-random bytes, generated as they are read.
+     * Streams of the same size always have the same contents.
+     */
+    public static InputStream generate(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size must not be negative");
+        }
+        return new GeneratedInputStream(size);
+    }
+
+    private static class GeneratedInputStream extends InputStream {
+
+        private long remaining;
+        private int state = 0x2545F491;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return nextByte();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) nextByte();
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+
+        private int nextByte() {
+            state ^= state << 13;
+            state ^= state >>> 17;
+            state ^= state << 5;
+            return state & 0xFF;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.hanleyt;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The time a test spent starting and stopping its container, and sending requests to it.
+ */
+final class TestTimings {
+
+    private final String testName;
+    private volatile long containerStartNanos = -1;
+    private volatile long containerStopNanos = -1;
+    private final Map<String, RequestTimings> requests = new ConcurrentHashMap<>();
+
+    TestTimings(String testName) {
+        this.testName = testName;
+    }
+
+    String getTestName() {
+        return testName;
+    }
+
+    long getContainerStartNanos() {
+        return containerStartNanos;
+    }
+
+    void setContainerStartNanos(long containerStartNanos) {
+        this.containerStartNanos = containerStartNanos;
+    }
+
+    long getContainerStopNanos() {
+        return containerStopNanos;
+    }
+
+    void setContainerStopNanos(long containerStopNanos) {
+        this.containerStopNanos = containerStopNanos;
+    }
+
+    void recordRequest(String request, long nanos) {
+        requests.computeIfAbsent(request, (unused) -> new RequestTimings()).record(nanos);
+    }
+
+    Map<String, RequestTimings> getRequests() {
+        return requests;
+    }
+
+    Map<String, String> toReportEntries() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        if (containerStartNanos >= 0) {
+            entries.put("jersey.container.start.ms", formatMillis(containerStartNanos));
+        }
+        if (containerStopNanos >= 0) {
+            entries.put("jersey.container.stop.ms", formatMillis(containerStopNanos));
+        }
+        long count = 0;
+        long totalNanos = 0;
+        String slowest = null;
+        long slowestNanos = -1;
+        for (Map.Entry<String, RequestTimings> request : requests.entrySet()) {
+            RequestTimings timings = request.getValue();
+            count += timings.getCount();
+            totalNanos += timings.getTotalNanos();
+            if (timings.getMaxNanos() > slowestNanos) {
+                slowestNanos = timings.getMaxNanos();
+                slowest = request.getKey();
+            }
+        }
+        entries.put("jersey.requests", Long.toString(count));
+        entries.put("jersey.requests.total.ms", formatMillis(totalNanos));
+        if (slowest != null) {
+            entries.put("jersey.requests.slowest", slowest + " " + formatMillis(slowestNanos) + " ms");
+        }
+        return entries;
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * The number, total and maximum time of the requests sent with the same method to the same path.
+     */
+    static final class RequestTimings {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized void add(RequestTimings other) {
+            synchronized (other) {
+                count += other.count;
+                totalNanos += other.totalNanos;
+                maxNanos = Math.max(maxNanos, other.maxNanos);
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+}
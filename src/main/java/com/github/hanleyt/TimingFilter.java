@@ -0,0 +1,52 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every request sent by a client, from the request filters to the response filters, and records it for the
+ * tests that are running. When tests sharing a client run concurrently, each of them records the requests of all.
+ */
+class TimingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    private static final String START_PROPERTY = TimingFilter.class.getName() + ".start";
+
+    private final Set<TestTimings> runningTests = ConcurrentHashMap.newKeySet();
+
+    static Optional<TimingFilter> of(Client client) {
+        return client.getConfiguration().getInstances().stream()
+                .filter(TimingFilter.class::isInstance)
+                .map(TimingFilter.class::cast)
+                .findFirst();
+    }
+
+    void start(TestTimings timings) {
+        runningTests.add(timings);
+    }
+
+    void stop(TestTimings timings) {
+        runningTests.remove(timings);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (start instanceof Long) {
+            long nanos = System.nanoTime() - (Long) start;
+            String request = requestContext.getMethod() + " " + requestContext.getUri().getPath();
+            runningTests.forEach(timings -> timings.recordRequest(request, nanos));
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.hanleyt;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the timings of every test in the run that reports to the same file, and writes them when the run finishes.
+ * The file is written as JSON if its name ends with {@code .json}, and as CSV otherwise.
+ */
+class TimingReport implements ExtensionContext.Store.CloseableResource {
+
+    private final Path path;
+    private final Queue<TestTimings> tests = new ConcurrentLinkedQueue<>();
+
+    private TimingReport(Path path) {
+        this.path = path;
+    }
+
+    static TimingReport get(ExtensionContext context, Path path) {
+        Path absolutePath = path.toAbsolutePath().normalize();
+        return context.getRoot().getStore(ExtensionContext.Namespace.create(TimingReport.class))
+                .getOrComputeIfAbsent(absolutePath, (unused) -> new TimingReport(absolutePath), TimingReport.class);
+    }
+
+    void add(TestTimings timings) {
+        tests.add(timings);
+    }
+
+    @Override
+    public void close() throws IOException {
+        Map<String, TestTimings.RequestTimings> requests = new TreeMap<>();
+        for (TestTimings test : tests) {
+            test.getRequests().forEach((request, timings) ->
+                    requests.computeIfAbsent(request, (unused) -> new TestTimings.RequestTimings()).add(timings));
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().endsWith(".json")) {
+                writeJson(writer, requests);
+            } else {
+                writeCsv(writer, requests);
+            }
+        }
+    }
+
+    private void writeCsv(Writer writer, Map<String, TestTimings.RequestTimings> requests) throws IOException {
+        writer.write("type,name,requests,request_total_ms,request_max_ms,container_start_ms,container_stop_ms\n");
+        for (TestTimings test : tests) {
+            long[] totals = totals(test.getRequests());
+            writer.write(String.join(",", "test", csv(test.getTestName()), Long.toString(totals[0]),
+                    TestTimings.formatMillis(totals[1]), TestTimings.formatMillis(totals[2]),
+                    optionalMillis(test.getContainerStartNanos()), optionalMillis(test.getContainerStopNanos())) + "\n");
+        }
+        for (Map.Entry<String, TestTimings.RequestTimings> request : requests.entrySet()) {
+            TestTimings.RequestTimings timings = request.getValue();
+            writer.write(String.join(",", "request", csv(request.getKey()), Long.toString(timings.getCount()),
+                    TestTimings.formatMillis(timings.getTotalNanos()), TestTimings.formatMillis(timings.getMaxNanos()), "", "") + "\n");
+        }
+    }
+
+    private void writeJson(Writer writer, Map<String, TestTimings.RequestTimings> requests) throws IOException {
+        writer.write("{\n  \"tests\": [");
+        String separator = "\n";
+        for (TestTimings test : tests) {
+            long[] totals = totals(test.getRequests());
+            writer.write(separator + "    {\"name\": " + json(test.getTestName())
+                    + ", \"requests\": " + totals[0]
+                    + ", \"requestTotalMs\": " + TestTimings.formatMillis(totals[1])
+                    + ", \"requestMaxMs\": " + TestTimings.formatMillis(totals[2])
+                    + ", \"containerStartMs\": " + jsonMillis(test.getContainerStartNanos())
+                    + ", \"containerStopMs\": " + jsonMillis(test.getContainerStopNanos()) + "}");
+            separator = ",\n";
+        }
+        writer.write("\n  ],\n  \"requests\": [");
+        separator = "\n";
+        for (Map.Entry<String, TestTimings.RequestTimings> request : requests.entrySet()) {
+            TestTimings.RequestTimings timings = request.getValue();
+            writer.write(separator + "    {\"request\": " + json(request.getKey())
+                    + ", \"count\": " + timings.getCount()
+                    + ", \"totalMs\": " + TestTimings.formatMillis(timings.getTotalNanos())
+                    + ", \"maxMs\": " + TestTimings.formatMillis(timings.getMaxNanos()) + "}");
+            separator = ",\n";
+        }
+        writer.write("\n  ]\n}\n");
+    }
+
+    private static long[] totals(Map<String, TestTimings.RequestTimings> requests) {
+        long[] totals = new long[3];
+        for (TestTimings.RequestTimings timings : requests.values()) {
+            totals[0] += timings.getCount();
+            totals[1] += timings.getTotalNanos();
+            totals[2] = Math.max(totals[2], timings.getMaxNanos());
+        }
+        return totals;
+    }
+
+    private static String optionalMillis(long nanos) {
+        return nanos < 0 ? "" : TestTimings.formatMillis(nanos);
+    }
+
+    private static String jsonMillis(long nanos) {
+        return nanos < 0 ? "null" : TestTimings.formatMillis(nanos);
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String json(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+}
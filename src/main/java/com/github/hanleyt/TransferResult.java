@@ -0,0 +1,49 @@
+package com.github.hanleyt;
+
+/**
+ * The size and checksum of an entity streamed by {@link StreamingRequests}.
+ */
+public final class TransferResult {
+
+    private final long bytes;
+    private final long checksum;
+
+    TransferResult(long bytes, long checksum) {
+        this.bytes = bytes;
+        this.checksum = checksum;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the CRC-32 checksum of the streamed bytes.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransferResult)) {
+            return false;
+        }
+        TransferResult that = (TransferResult) o;
+        return bytes == that.bytes && checksum == that.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(bytes) + Long.hashCode(checksum);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResult{bytes=" + bytes + ", checksum=" + Long.toHexString(checksum) + "}";
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.github.hanleyt;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.glassfish.jersey.test.TestProperties;
+import org.glassfish.jersey.test.spi.TestContainer;
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+
+import javax.ws.rs.core.UriBuilder;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Starts the same Grizzly container as the Grizzly test container factory, but with a worker pool that runs each
+ * request on a new virtual thread.
+ */
+class VirtualThreadTestContainerFactory implements TestContainerFactory {
+
+    private static final String GRIZZLY_TEST_CONTAINER_FACTORY = "org.glassfish.jersey.test.grizzly.GrizzlyTestContainerFactory";
+    private static final boolean GRIZZLY_AVAILABLE = isClassAvailable(GRIZZLY_TEST_CONTAINER_FACTORY);
+
+    /**
+     * Whether the deployment would otherwise be started in a Grizzly container, by the given factory or by the default
+     * one when no factory is given, and the runtime supports virtual threads.
+     */
+    static boolean supports(TestContainerFactory testContainerFactory, DeploymentContext deploymentContext) {
+        if (!VirtualThreads.isSupported() || !GRIZZLY_AVAILABLE || deploymentContext instanceof ServletDeploymentContext) {
+            return false;
+        }
+        String factoryClassName = testContainerFactory == null
+                ? System.getProperty(TestProperties.CONTAINER_FACTORY, TestProperties.DEFAULT_CONTAINER_FACTORY)
+                : testContainerFactory.getClass().getName();
+        return GRIZZLY_TEST_CONTAINER_FACTORY.equals(factoryClassName);
+    }
+
+    @Override
+    public TestContainer create(URI baseUri, DeploymentContext deploymentContext) {
+        return new GrizzlyContainer(baseUri, deploymentContext);
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, VirtualThreadTestContainerFactory.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Kept apart so that the Grizzly classes are only loaded when they are on the classpath.
+     */
+    private static class GrizzlyContainer implements TestContainer {
+
+        private final HttpServer server;
+        private final ExecutorService workers;
+        private URI baseUri;
+
+        GrizzlyContainer(URI baseUri, DeploymentContext deploymentContext) {
+            this.baseUri = UriBuilder.fromUri(baseUri).path(deploymentContext.getContextPath()).build();
+            this.workers = VirtualThreads.newVirtualThreadPerTaskExecutor()
+                    .orElseThrow(() -> new TestContainerException("Virtual threads are not supported by this runtime"));
+            this.server = GrizzlyHttpServerFactory.createHttpServer(this.baseUri, deploymentContext.getResourceConfig(), false);
+            server.getListeners().forEach(listener -> {
+                listener.getTransport().setWorkerThreadPool(workers);
+                listener.getTransport().setReuseAddress(true);
+            });
+        }
+
+        @Override
+        public ClientConfig getClientConfig() {
+            return null;
+        }
+
+        @Override
+        public URI getBaseUri() {
+            return baseUri;
+        }
+
+        @Override
+        public void start() {
+            if (server.isStarted()) {
+                return;
+            }
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new TestContainerException(e);
+            }
+            if (baseUri.getPort() == 0) {
+                baseUri = UriBuilder.fromUri(baseUri).port(server.getListener("grizzly").getPort()).build();
+            }
+        }
+
+        @Override
+        public void stop() {
+            if (server.isStarted()) {
+                server.shutdownNow();
+            }
+            workers.shutdownNow();
+        }
+    }
+
+}
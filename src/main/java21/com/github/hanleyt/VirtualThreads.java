@@ -0,0 +1,26 @@
+package com.github.hanleyt;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads, used in place of the reflective lookup when running on Java 21 or later.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread for each task.
+     */
+    static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        return Optional.of(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Path("/counter")
+public class CounterResource implements Resettable<Integer> {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @POST
+    @Produces(MediaType.TEXT_PLAIN)
+    public String increment() {
+        return String.valueOf(count.incrementAndGet());
+    }
+
+    @Override
+    public Integer snapshot() {
+        return count.get();
+    }
+
+    @Override
+    public void restore(Integer snapshot) {
+        count.set(snapshot);
+    }
+
+}
@@ -15,9 +15,15 @@ import java.util.Set;
 class DummyExtensionContext implements ExtensionContext {
 
     private final ExtensionValuesStore valuesStore;
+    private final Class<?> testClass;
 
     DummyExtensionContext() {
-        valuesStore = new ExtensionValuesStore(null);
+        this(null);
+    }
+
+    DummyExtensionContext(Class<?> testClass) {
+        this.valuesStore = new ExtensionValuesStore(null);
+        this.testClass = testClass;
     }
 
     @Override
@@ -27,12 +33,12 @@ class DummyExtensionContext implements ExtensionContext {
 
     @Override
     public Optional<ExtensionContext> getParent() {
-        throw new UnsupportedOperationException("Not implemented");
+        return Optional.empty();
     }
 
     @Override
     public ExtensionContext getRoot() {
-        throw new UnsupportedOperationException("Not implemented");
+        return this;
     }
 
     @Override
@@ -57,7 +63,7 @@ class DummyExtensionContext implements ExtensionContext {
 
     @Override
     public Optional<Class<?>> getTestClass() {
-        throw new UnsupportedOperationException("Not implemented");
+        return Optional.ofNullable(testClass);
     }
 
     @Override
@@ -77,7 +83,7 @@ class DummyExtensionContext implements ExtensionContext {
 
     @Override
     public Optional<Method> getTestMethod() {
-        throw new UnsupportedOperationException("Not implemented");
+        return Optional.empty();
     }
 
     @Override
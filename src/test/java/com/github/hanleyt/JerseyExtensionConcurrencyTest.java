@@ -0,0 +1,88 @@
+package com.github.hanleyt;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JerseyExtension running tests concurrently should")
+@Execution(ExecutionMode.CONCURRENT)
+@ResourceLock(value = "jvm.threads", mode = ResourceAccessMode.READ)
+class JerseyExtensionConcurrencyTest {
+
+    private static final int REPETITIONS = 200;
+
+    private static final Set<URI> baseUrisInUse = ConcurrentHashMap.newKeySet();
+    private static final Set<URI> classScopedBaseUris = ConcurrentHashMap.newKeySet();
+
+    @Nested
+    @DisplayName("with a container per test")
+    @Execution(ExecutionMode.CONCURRENT)
+    class ContainerPerTest {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = new JerseyExtension(() -> new ResourceConfig(DummyResource.class));
+
+        @RepeatedTest(REPETITIONS)
+        @DisplayName("give every test a container of its own")
+        void every_test_has_its_own_container(WebTarget target, Client client, URI baseUri) {
+            assertTrue(baseUrisInUse.add(baseUri), "base URI " + baseUri + " is used by another running test");
+            try {
+                assertEquals(baseUri, target.getUri());
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+                assertEquals(DummyResource.DEFAULT_VALUES, client.target(baseUri).path("values").request().get(String.class));
+            } finally {
+                baseUrisInUse.remove(baseUri);
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("with a class scoped container")
+    @Execution(ExecutionMode.CONCURRENT)
+    @TestInstance(Lifecycle.PER_CLASS)
+    class ClassScopedContainer {
+
+        private final AtomicInteger resets = new AtomicInteger();
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .scope(ContainerScope.CLASS)
+                .resetHook((context) -> resets.incrementAndGet())
+                .build();
+
+        @RepeatedTest(REPETITIONS)
+        @DisplayName("share one container between all tests")
+        void tests_share_one_container(WebTarget target, URI baseUri) {
+            classScopedBaseUris.add(baseUri);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @AfterAll
+        void container_was_started_once_and_reset_after_every_test() {
+            assertEquals(1, classScopedBaseUris.size());
+            assertEquals(REPETITIONS, resets.get());
+        }
+
+    }
+
+}
@@ -1,13 +1,20 @@
 package com.github.hanleyt;
 
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.servlet.ServletContainer;
 import org.glassfish.jersey.test.DeploymentContext;
 import org.glassfish.jersey.test.JerseyTest;
 import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.glassfish.jersey.test.grizzly.GrizzlyTestContainerFactory;
 import org.glassfish.jersey.test.grizzly.GrizzlyWebTestContainerFactory;
+import org.glassfish.jersey.test.inmemory.InMemoryTestContainerFactory;
 import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -18,15 +25,50 @@ import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.net.ServerSocket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,14 +76,16 @@ import static org.junit.jupiter.api.Assertions.*;
 class JerseyExtensionTest {
 
     @Test
-    @DisplayName("only be registered programmatically")
-    void only_be_registered_programmatically() throws NoSuchMethodException {
+    @DisplayName("be registered programmatically or configured with @JerseyTestApp")
+    void be_registered_programmatically_or_declared() throws Exception {
         Constructor<JerseyExtension> constructor = JerseyExtension.class.getDeclaredConstructor();
         assertTrue(Modifier.isPrivate(constructor.getModifiers()));
         constructor.setAccessible(true);
-        Exception exception = Assertions.assertThrows(Exception.class, constructor::newInstance);
-        assertTrue(exception.getCause() instanceof IllegalStateException);
-        assertTrue(exception.getCause().getMessage().contains("JerseyExtension must be registered programmatically"));
+        JerseyExtension jerseyExtension = constructor.newInstance();
+        ExtensionContext undeclaredContext = new DummyExtensionContext(JerseyExtensionTest.class);
+        Exception exception = Assertions.assertThrows(ExtensionConfigurationException.class,
+                () -> jerseyExtension.beforeEach(undeclaredContext));
+        assertTrue(exception.getMessage().contains("JerseyExtension must be registered programmatically or configured with @JerseyTestApp"));
     }
 
     @Nested
@@ -222,6 +266,271 @@ class JerseyExtensionTest {
     }
 
 
+    @Nested
+    @DisplayName("when registered with a class scoped container")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class ClassScopedContainerApp {
+
+        private URI firstBaseUri;
+        private URI nestedBaseUri;
+        private int testsRun;
+        private int resets;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(this::configureJersey)
+                .scope(ContainerScope.CLASS)
+                .resetHook(this::reset)
+                .build();
+
+        private Application configureJersey() {
+            return new ResourceConfig(DummyResource.class);
+        }
+
+        private void reset(ExtensionContext extensionContext) {
+            assertNotNull(extensionContext);
+            resets++;
+        }
+
+        @Test
+        @DisplayName("reuse the container and reset after each test")
+        void container_is_reused(WebTarget target, URI baseUri) {
+            assertContainerIsShared(target, baseUri);
+        }
+
+        @Test
+        @DisplayName("reuse the container for another test and reset after each test")
+        void container_is_reused_again(WebTarget target, URI baseUri) {
+            assertContainerIsShared(target, baseUri);
+        }
+
+        private void assertContainerIsShared(WebTarget target, URI baseUri) {
+            if (firstBaseUri == null) {
+                firstBaseUri = baseUri;
+            }
+            assertEquals(firstBaseUri, baseUri);
+            assertNotEquals(nestedBaseUri, baseUri);
+            assertEquals(testsRun++, resets);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Nested
+        @DisplayName("and a nested class is run")
+        class NestedApp {
+
+            @Test
+            @DisplayName("start a container of its own")
+            void nested_class_has_its_own_container(WebTarget target, URI baseUri) {
+                nestedBaseUri = baseUri;
+                assertNotEquals(firstBaseUri, nestedBaseUri);
+                assertEquals(testsRun++, resets);
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with an outermost class scoped container")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class OutermostClassScopedContainerApp {
+
+        private URI outerBaseUri;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .scope(ContainerScope.OUTERMOST_CLASS)
+                .build();
+
+        @Test
+        @DisplayName("access the resource using the injected WebTarget")
+        void web_target_is_injected(WebTarget target, URI baseUri) {
+            assertContainerIsShared(baseUri);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Nested
+        @DisplayName("and a nested class is run")
+        class NestedApp {
+
+            @Test
+            @DisplayName("share the container with the enclosing class")
+            void container_is_shared_with_enclosing_class(WebTarget target, URI baseUri) {
+                assertContainerIsShared(baseUri);
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+
+        }
+
+        private void assertContainerIsShared(URI baseUri) {
+            if (outerBaseUri == null) {
+                outerBaseUri = baseUri;
+            }
+            assertEquals(outerBaseUri, baseUri);
+        }
+
+    }
+
+
+    private static URI suiteBaseUri;
+
+    private static synchronized void assertSharedSuiteContainer(URI baseUri) {
+        if (suiteBaseUri == null) {
+            suiteBaseUri = baseUri;
+        }
+        assertEquals(suiteBaseUri, baseUri);
+    }
+
+    @Nested
+    @DisplayName("when registered with a suite scoped container")
+    class SuiteScopedContainerApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .scope(ContainerScope.SUITE)
+                .build();
+
+        @Test
+        @DisplayName("share the container with other classes deploying the same application")
+        void container_is_shared_between_classes(WebTarget target, URI baseUri) {
+            assertSharedSuiteContainer(baseUri);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @DisplayName("fingerprint deployments by their resources rather than by identity")
+        void deployments_are_fingerprinted() {
+            DeploymentFingerprint fingerprint = DeploymentFingerprint.of(
+                    DeploymentContext.newInstance(new ResourceConfig(DummyResource.class)), null);
+            assertEquals(fingerprint, DeploymentFingerprint.of(
+                    DeploymentContext.newInstance(new ResourceConfig(DummyResource.class)), null));
+            assertNotEquals(fingerprint, DeploymentFingerprint.of(
+                    DeploymentContext.newInstance(new ResourceConfig().register(new DummyResource())), null));
+            assertNotEquals(fingerprint, DeploymentFingerprint.of(
+                    DeploymentContext.newInstance(new ResourceConfig(DummyResource.class)), new GrizzlyWebTestContainerFactory()));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when configured with @JerseyTestApp")
+    @JerseyTestApp(resources = DummyResource.class)
+    class DeclaredApp {
+
+        @Test
+        @DisplayName("access the declared resources using the injected WebTarget")
+        void web_target_is_injected(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @DisplayName("cache the deployment built from the annotation")
+        void deployment_is_cached(DeploymentCache deploymentCache) {
+            assertNotNull(deploymentCache);
+        }
+
+        @Nested
+        @DisplayName("and a nested class")
+        class NestedApp {
+
+            @Test
+            @DisplayName("deploy the application declared by the enclosing class")
+            void enclosing_declaration_applies(WebTarget target) {
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when configured with @JerseyTestApp and a suite scoped container")
+    @JerseyTestApp(resources = DummyResource.class, scope = ContainerScope.SUITE)
+    class DeclaredSuiteScopedApp {
+
+        @Test
+        @DisplayName("share the container with other classes deploying the same application")
+        void container_is_shared_between_classes(URI baseUri) {
+            assertSharedSuiteContainer(baseUri);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when configured with @JerseyTestApp and an in-memory container")
+    @JerseyTestApp(resources = DummyResource.class, container = InMemoryTestContainerFactory.class)
+    class DeclaredInMemoryApp {
+
+        @Test
+        @DisplayName("use the declared container")
+        void container_is_declared(Client client) {
+            ConnectorProvider connectorProvider = ((ClientConfig) client.getConfiguration()).getConnectorProvider();
+            assertEquals("org.glassfish.jersey.test.inmemory.InMemoryConnector$Provider", connectorProvider.getClass().getName());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a suite scoped container in another class")
+    class OtherSuiteScopedContainerApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .scope(ContainerScope.SUITE)
+                .build();
+
+        @Test
+        @DisplayName("share the container with other classes deploying the same application")
+        void container_is_shared_between_classes(WebTarget target, URI baseUri) {
+            assertSharedSuiteContainer(baseUri);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+    }
+
+
+    private static JerseyExtension suiteScopedExtension(String clientValue) {
+        return JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .clientConfig((context, config) -> config.property(ExtensionNeededToConfigureJersey.TEST_VALUE, clientValue))
+                .scope(ContainerScope.SUITE)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("when registered with a suite scoped container and its own client configuration")
+    class ConfiguredSuiteScopedContainerApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = suiteScopedExtension("first");
+
+        @Test
+        @DisplayName("not share the container with classes configuring their client differently")
+        void container_is_not_shared(Client client) {
+            assertEquals("first", client.getConfiguration().getProperty(ExtensionNeededToConfigureJersey.TEST_VALUE));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a suite scoped container and another client configuration")
+    class OtherConfiguredSuiteScopedContainerApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = suiteScopedExtension("second");
+
+        @Test
+        @DisplayName("not share the container with classes configuring their client differently")
+        void container_is_not_shared(Client client) {
+            assertEquals("second", client.getConfiguration().getProperty(ExtensionNeededToConfigureJersey.TEST_VALUE));
+        }
+
+    }
+
     private static class ExtensionNeededToConfigureJersey implements BeforeEachCallback, AfterEachCallback {
 
         private static final String TEST_VALUE = "testValue";
@@ -241,6 +550,1203 @@ class JerseyExtensionTest {
         }
     }
 
+    @Nested
+    @DisplayName("when registered to use virtual threads")
+    class VirtualThreadsApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class, ThreadResource.class))
+                .virtualThreads()
+                .build();
+
+        @Test
+        @DisplayName("handle requests on virtual threads if the runtime supports them")
+        void requests_are_handled_on_virtual_threads(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            String thread = target.path("thread").request().get(String.class);
+            assertEquals(VirtualThreads.isSupported(), thread.startsWith("VirtualThread"), thread);
+        }
+
+        @Test
+        @DisplayName("send asynchronous requests on virtual threads if the runtime supports them")
+        void async_requests_are_sent_on_virtual_threads(AsyncRequests asyncRequests) throws Exception {
+            String thread = asyncRequests.get("values")
+                    .thenApply(response -> {
+                        response.close();
+                        return Thread.currentThread().toString();
+                    })
+                    .toCompletableFuture().get(30, TimeUnit.SECONDS);
+            assertEquals(VirtualThreads.isSupported(), thread.startsWith("VirtualThread"), thread);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with chunked encoding and StreamingRequests is injected")
+    class StreamingRequestsApp {
+
+        private static final long SIZE = 128L * 1024 * 1024;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(StreamingResource.class))
+                .chunkedEncoding(64 * 1024)
+                .build();
+
+        @Test
+        @DisplayName("stream a large request entity in chunks")
+        void large_uploads_are_streamed(StreamingRequests streamingRequests) throws Exception {
+            TransferResult expected = StreamingRequests.consume(StreamingRequests.generate(SIZE));
+            try (Response response = streamingRequests.upload("stream", StreamingRequests.generate(SIZE))) {
+                assertEquals(expected.getBytes() + " " + expected.getChecksum() + " chunked", response.readEntity(String.class));
+            }
+        }
+
+        @Test
+        @DisplayName("consume a large response entity in chunks")
+        void large_downloads_are_streamed(StreamingRequests streamingRequests) throws Exception {
+            TransferResult expected = StreamingRequests.consume(StreamingRequests.generate(SIZE));
+            assertEquals(expected, streamingRequests.download("stream/" + SIZE));
+        }
+
+        @Test
+        @DisplayName("stream a request entity from a file")
+        void files_are_uploaded(StreamingRequests streamingRequests, @TempDir Path directory) throws Exception {
+            Path file = directory.resolve("payload.bin");
+            Files.copy(StreamingRequests.generate(1_000_000), file);
+            TransferResult expected = StreamingRequests.consume(Files.newInputStream(file));
+            try (Response response = streamingRequests.upload("stream", file)) {
+                assertEquals(expected.getBytes() + " " + expected.getChecksum() + " chunked", response.readEntity(String.class));
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered to cache the deployment")
+    class CachedDeploymentApp {
+
+        private final AtomicInteger builtApplications = new AtomicInteger();
+        private final ExtensionContext extensionContext = new DummyExtensionContext(CachedDeploymentApp.class);
+
+        private Application countedApplication(String values) {
+            builtApplications.incrementAndGet();
+            return new ResourceConfig().register(new DummyResource(values));
+        }
+
+        private String getValues(JerseyExtension jerseyExtension) {
+            return jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class)
+                    .path("values").request().get(String.class);
+        }
+
+        @Test
+        @DisplayName("build the application once for all tests in the class")
+        void application_is_built_once() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> countedApplication("cached"))
+                    .cacheDeployment()
+                    .build();
+            for (int i = 0; i < 3; i++) {
+                jerseyExtension.beforeEach(extensionContext);
+                assertEquals("cached", getValues(jerseyExtension));
+                jerseyExtension.afterEach(extensionContext);
+            }
+            assertEquals(1, builtApplications.get());
+        }
+
+        @Test
+        @DisplayName("build the application again once it has been invalidated")
+        void invalidated_application_is_built_again() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> countedApplication("cached"))
+                    .cacheDeployment()
+                    .build();
+            jerseyExtension.beforeEach(extensionContext);
+            jerseyExtension.getStore(extensionContext).get(DeploymentCache.class, DeploymentCache.class).invalidate();
+            jerseyExtension.afterEach(extensionContext);
+            jerseyExtension.beforeEach(extensionContext);
+            assertEquals("cached", getValues(jerseyExtension));
+            jerseyExtension.afterEach(extensionContext);
+            assertEquals(2, builtApplications.get());
+        }
+
+        @Test
+        @DisplayName("share the application between extensions declaring the same key")
+        void application_is_shared_by_key() throws Exception {
+            JerseyExtension first = JerseyExtension.builder()
+                    .application(() -> countedApplication("first"))
+                    .cacheDeployment("scanned")
+                    .build();
+            JerseyExtension second = JerseyExtension.builder()
+                    .application(() -> countedApplication("second"))
+                    .cacheDeployment("scanned")
+                    .build();
+            first.beforeEach(extensionContext);
+            second.beforeEach(extensionContext);
+            assertEquals("first", getValues(second));
+            second.afterEach(extensionContext);
+            first.afterEach(extensionContext);
+            assertEquals(1, builtApplications.get());
+        }
+
+        @Test
+        @DisplayName("give each container a copy of the cached application")
+        void application_is_copied() {
+            DeploymentCache deploymentCache = DeploymentCache.get(extensionContext, "copied");
+            DeploymentContext first = deploymentCache.get(() -> DeploymentContext.newInstance(
+                    ResourceConfig.forApplication(new Application() {
+
+                        @Override
+                        public Set<Class<?>> getClasses() {
+                            return Collections.singleton(DummyResource.class);
+                        }
+                    })));
+            first.getResourceConfig().register(new DummyResource("registered"));
+            DeploymentContext second = deploymentCache.get(() -> {
+                throw new AssertionError("The deployment context is cached");
+            });
+            assertNotSame(first.getResourceConfig(), second.getResourceConfig());
+            assertEquals(Collections.singleton(DummyResource.class), second.getResourceConfig().getClasses());
+            assertTrue(second.getResourceConfig().getInstances().isEmpty());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a port range")
+    class PortRangeApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .portRange(41000, 41999)
+                .build();
+
+        @Test
+        @DisplayName("start the container on a port in the range")
+        void container_port_is_in_range(WebTarget target) {
+            int port = target.getUri().getPort();
+            assertTrue(port >= 41000 && port <= 41999, "port " + port);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @DisplayName("skip ports that are bound by another process")
+        void bound_ports_are_skipped() throws Exception {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                int boundPort = socket.getLocalPort();
+                PortAllocator portAllocator = new PortAllocator(boundPort, boundPort + 1, 0, 0);
+                assertEquals(boundPort + 1, portAllocator.allocate());
+                assertEquals(1, portAllocator.getInUse());
+            }
+        }
+
+        @Test
+        @DisplayName("allocate from a slice of the range for each fork")
+        void forks_allocate_from_their_own_slice() {
+            PortAllocator portAllocator = new PortAllocator(42000, 42999, 7, 4);
+            int port = portAllocator.allocate();
+            assertTrue(port >= 42750 && port <= 42999, "port " + port);
+            portAllocator.release(port);
+            assertEquals(0, portAllocator.getInUse());
+            assertNotEquals(port, portAllocator.allocate());
+        }
+
+        @Test
+        @DisplayName("claim a slice of the range that no other fork has claimed")
+        void forks_with_the_same_worker_id_claim_different_slices() {
+            int first = new PortAllocator(43000, 43999, 5, 4).allocate();
+            int second = new PortAllocator(43000, 43999, 5, 4).allocate();
+            assertNotEquals((first - 43000) / 250, (second - 43000) / 250);
+        }
+
+        @Test
+        @DisplayName("not allocate ports for in-memory containers")
+        void in_memory_containers_use_no_port() throws Exception {
+            ExtensionContext extensionContext = new DummyExtensionContext();
+            JerseyExtension inMemoryExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .inMemory()
+                    .portRange(44000, 44999)
+                    .build();
+            inMemoryExtension.beforeEach(extensionContext);
+            try {
+                WebTarget target = inMemoryExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            } finally {
+                inMemoryExtension.afterEach(extensionContext);
+            }
+            assertEquals(0, PortAllocator.get(extensionContext, 44000, 44999).getAllocations());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with profiling")
+    class ProfilingApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .profiling()
+                .build();
+
+        @Test
+        @DisplayName("profile each invoked resource method")
+        void resource_methods_are_profiled(WebTarget target, ServerProfile serverProfile) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+            ResourceMethodProfile profile = serverProfile.getResourceMethod("GET DummyResource.get")
+                    .orElseThrow(() -> new AssertionError(serverProfile));
+            assertEquals(10, profile.getInvocations());
+            assertEquals(10, profile.getLatencies().getCount());
+            assertEquals(10, profile.getInvocationLatencies().getCount());
+            assertTrue(profile.getLatencies().getMax().compareTo(profile.getInvocationLatencies().getMin()) >= 0);
+            assertNotEquals(0, profile.getAllocatedBytes());
+        }
+
+        @Test
+        @DisplayName("not profile requests that match no resource method")
+        void unmatched_requests_are_not_profiled(WebTarget target, ServerProfile serverProfile) {
+            assertEquals(404, target.path("missing").request().get().getStatus());
+            assertTrue(serverProfile.getResourceMethods().isEmpty());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with profiling and a pooled client")
+    class ProfilingPooledClientApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .profiling()
+                .pooledClient()
+                .build();
+
+        private void assertProfiled(WebTarget target, ServerProfile serverProfile) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+            ResourceMethodProfile profile = serverProfile.getResourceMethod("GET DummyResource.get")
+                    .orElseThrow(() -> new AssertionError(serverProfile));
+            assertEquals(3, profile.getInvocations());
+        }
+
+        @Test
+        @DisplayName("profile the container of the first test")
+        void first_container_is_profiled(WebTarget target, ServerProfile serverProfile) {
+            assertProfiled(target, serverProfile);
+        }
+
+        @Test
+        @DisplayName("profile the container of the second test")
+        void second_container_is_profiled(WebTarget target, ServerProfile serverProfile) {
+            assertProfiled(target, serverProfile);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with response snapshots")
+    class ResponseSnapshotsApp {
+
+        @TempDir
+        Path directory;
+
+        private final ExtensionContext extensionContext = new DummyExtensionContext(ResponseSnapshotsApp.class);
+
+        private JerseyExtension snapshotExtension(String values, SnapshotMode mode) {
+            return JerseyExtension.builder()
+                    .application(() -> new ResourceConfig().register(new DummyResource(values)).register(StreamingResource.class))
+                    .responseSnapshots(directory, mode)
+                    .profiling()
+                    .build();
+        }
+
+        private WebTarget getTarget(JerseyExtension jerseyExtension) {
+            return jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+        }
+
+        @Test
+        @DisplayName("replay recorded responses in place of the responses of the container")
+        void recorded_responses_are_replayed() throws Exception {
+            JerseyExtension recording = snapshotExtension("recorded", SnapshotMode.RECORD);
+            recording.beforeEach(extensionContext);
+            assertEquals("recorded", getTarget(recording).path("values").request().get(String.class));
+            recording.afterEach(extensionContext);
+
+            JerseyExtension replaying = snapshotExtension("changed", SnapshotMode.REPLAY_ONLY);
+            replaying.beforeEach(extensionContext);
+            Response response = getTarget(replaying).path("values").request().get();
+            assertEquals(200, response.getStatus());
+            assertEquals("recorded", response.readEntity(String.class));
+            replaying.afterEach(extensionContext);
+        }
+
+        @Test
+        @DisplayName("fail requests without a snapshot when only replaying")
+        void requests_without_snapshot_fail() throws Exception {
+            JerseyExtension replaying = snapshotExtension("changed", SnapshotMode.REPLAY_ONLY);
+            replaying.beforeEach(extensionContext);
+            Exception exception = assertThrows(ProcessingException.class,
+                    () -> getTarget(replaying).path("values").request().get(String.class));
+            assertTrue(exception.getMessage().contains("No response snapshot for GET"));
+            replaying.afterEach(extensionContext);
+        }
+
+        @Test
+        @DisplayName("send a request to the container only until its response has been recorded")
+        void missing_snapshots_are_recorded() throws Exception {
+            JerseyExtension replaying = snapshotExtension("recorded", SnapshotMode.REPLAY);
+            replaying.beforeEach(extensionContext);
+            for (int i = 0; i < 2; i++) {
+                assertEquals("recorded", getTarget(replaying).path("values").request().get(String.class));
+            }
+            ServerProfile serverProfile = replaying.getStore(extensionContext).get(ServerProfile.class, ServerProfile.class);
+            assertEquals(1, serverProfile.getResourceMethod("GET DummyResource.get")
+                    .orElseThrow(() -> new AssertionError(serverProfile)).getInvocations());
+            replaying.afterEach(extensionContext);
+        }
+
+        @Test
+        @DisplayName("record a snapshot for each request entity")
+        void snapshots_are_keyed_by_entity() throws Exception {
+            JerseyExtension recording = snapshotExtension("recorded", SnapshotMode.REPLAY);
+            recording.beforeEach(extensionContext);
+            WebTarget target = getTarget(recording).path("stream");
+            String first = target.request().post(Entity.entity("first", MediaType.APPLICATION_OCTET_STREAM), String.class);
+            String second = target.request().post(Entity.entity("second", MediaType.APPLICATION_OCTET_STREAM), String.class);
+            assertNotEquals(first, second);
+            assertEquals(first, target.request().post(Entity.entity("first", MediaType.APPLICATION_OCTET_STREAM), String.class));
+            recording.afterEach(extensionContext);
+            try (Stream<Path> snapshots = Files.list(directory)) {
+                assertEquals(2, snapshots.count());
+            }
+        }
+
+        @Test
+        @DisplayName("record a response only once its entity has been read to the end")
+        void partly_read_responses_are_not_recorded() throws Exception {
+            JerseyExtension recording = snapshotExtension("recorded", SnapshotMode.RECORD);
+            recording.beforeEach(extensionContext);
+            WebTarget target = getTarget(recording).path("stream/1048576");
+            try (InputStream entity = target.request().get(InputStream.class)) {
+                assertTrue(entity.read(new byte[8192]) > 0);
+            }
+            try (Stream<Path> snapshots = Files.list(directory)) {
+                assertEquals(0, snapshots.count());
+            }
+            assertEquals(1048576, StreamingRequests.consume(target.request().get(InputStream.class)).getBytes());
+            recording.afterEach(extensionContext);
+            try (Stream<Path> snapshots = Files.list(directory)) {
+                assertEquals(1, snapshots.count());
+            }
+        }
+
+        @Test
+        @DisplayName("count the entity of a recorded request once")
+        void recorded_request_entities_are_counted_once() throws Exception {
+            JerseyExtension recording = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(StreamingResource.class))
+                    .responseSnapshots(directory, SnapshotMode.RECORD)
+                    .payloadSizes()
+                    .build();
+            recording.beforeEach(extensionContext);
+            try {
+                byte[] entity = new byte[1000];
+                getTarget(recording).path("stream").request()
+                        .post(Entity.entity(entity, MediaType.APPLICATION_OCTET_STREAM), String.class);
+                PayloadSizes payloadSizes = recording.getStore(extensionContext).get(PayloadSizes.class, PayloadSizes.class);
+                assertEquals(entity.length, payloadSizes.getRequestBytes());
+            } finally {
+                recording.afterEach(extensionContext);
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with faults")
+    class FaultsApp {
+
+        private final ExtensionContext extensionContext = new DummyExtensionContext(FaultsApp.class);
+
+        private <T> T withFaults(Faults faults, Function<WebTarget, T> test) throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class, StreamingResource.class))
+                    .faults(faults)
+                    .build();
+            jerseyExtension.beforeEach(extensionContext);
+            try {
+                return test.apply(jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class));
+            } finally {
+                jerseyExtension.afterEach(extensionContext);
+            }
+        }
+
+        @Test
+        @DisplayName("delay every request by the configured latency")
+        void requests_are_delayed() throws Exception {
+            long nanos = withFaults(new Faults().latency(Duration.ofMillis(100)), target -> {
+                long start = System.nanoTime();
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+                return System.nanoTime() - start;
+            });
+            assertTrue(nanos >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        @Test
+        @DisplayName("time out requests delayed beyond the read timeout of the client")
+        void delayed_requests_time_out() throws Exception {
+            ProcessingException exception = withFaults(new Faults().latency(Duration.ofSeconds(10)), target ->
+                    assertThrows(ProcessingException.class, () -> target.path("values").request()
+                            .property(ClientProperties.READ_TIMEOUT, 50).get(String.class)));
+            assertTrue(exception.getCause() instanceof SocketTimeoutException);
+        }
+
+        @Test
+        @DisplayName("reset connections and answer with server errors at the configured rates")
+        void requests_fail_at_rates() throws Exception {
+            ProcessingException exception = withFaults(new Faults().resetRate(1), target ->
+                    assertThrows(ProcessingException.class, () -> target.path("values").request().get(String.class)));
+            assertTrue(exception.getCause() instanceof SocketException);
+            int status = withFaults(new Faults().errorRate(1, 502), target -> target.path("values").request().get().getStatus());
+            assertEquals(502, status);
+        }
+
+        @Test
+        @DisplayName("inject the same faults on every run")
+        void faults_are_deterministic() throws Exception {
+            Function<WebTarget, List<Integer>> statuses = target -> {
+                List<Integer> result = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    result.add(target.path("values").request().get().getStatus());
+                }
+                return result;
+            };
+            List<Integer> first = withFaults(new Faults().errorRate(0.5).seed(7), statuses);
+            List<Integer> second = withFaults(new Faults().errorRate(0.5).seed(7), statuses);
+            assertEquals(first, second);
+            assertTrue(first.contains(200));
+            assertTrue(first.contains(503));
+        }
+
+        @Test
+        @DisplayName("limit the bandwidth of request and response entities")
+        void entities_are_throttled() throws Exception {
+            long nanos = withFaults(new Faults().bandwidth(1024 * 1024), target -> {
+                long start = System.nanoTime();
+                target.path("stream").request().post(Entity.entity(new byte[256 * 1024], MediaType.APPLICATION_OCTET_STREAM), String.class);
+                target.path("stream/" + 256 * 1024).request().get(byte[].class);
+                return System.nanoTime() - start;
+            });
+            assertTrue(nanos >= TimeUnit.MILLISECONDS.toNanos(450));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a leak check")
+    @ResourceLock(value = "jvm.threads", mode = ResourceAccessMode.READ_WRITE)
+    class LeakCheckApp {
+
+        private final List<Thread> leakedThreads = new ArrayList<>();
+        private final Map<String, String> reportEntries = new HashMap<>();
+        private final ExtensionContext extensionContext = new DummyExtensionContext(LeakCheckApp.class) {
+
+            @Override
+            public void publishReportEntry(Map<String, String> map) {
+                reportEntries.putAll(map);
+            }
+        };
+
+        private Application leakingApplication() {
+            for (int i = 0; i < 3; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        Thread.sleep(Long.MAX_VALUE);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "leaked-by-application");
+                thread.setDaemon(true);
+                thread.start();
+                leakedThreads.add(thread);
+            }
+            return new ResourceConfig(DummyResource.class);
+        }
+
+        private void runContainer(JerseyExtension jerseyExtension) throws Exception {
+            jerseyExtension.beforeEach(extensionContext);
+            try {
+                assertEquals(DummyResource.DEFAULT_VALUES, jerseyExtension.getStore(extensionContext)
+                        .get(WebTarget.class, WebTarget.class).path("values").request().get(String.class));
+            } finally {
+                jerseyExtension.afterEach(extensionContext);
+            }
+        }
+
+        @AfterEach
+        void stopLeakedThreads() {
+            leakedThreads.forEach(Thread::interrupt);
+        }
+
+        @Test
+        @DisplayName("publish the growth of the run after each container stops")
+        void growth_is_published() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .leakCheck(new LeakCheck())
+                    .build();
+            runContainer(jerseyExtension);
+            assertNotNull(reportEntries.get("jersey.leak.threads"));
+            assertNull(reportEntries.get("jersey.leak.threads.growth"));
+            for (int i = 0; i < 3; i++) {
+                runContainer(jerseyExtension);
+            }
+            assertNotNull(reportEntries.get("jersey.leak.threads.growth"));
+            assertNull(reportEntries.get("jersey.leak.warning"));
+        }
+
+        @Test
+        @DisplayName("warn when the run grows beyond a threshold")
+        void leaks_are_warned_about() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(this::leakingApplication)
+                    .leakCheck(new LeakCheck().threads(1).settleTime(Duration.ofMillis(100)))
+                    .build();
+            runContainer(jerseyExtension);
+            runContainer(jerseyExtension);
+            assertTrue(reportEntries.get("jersey.leak.warning").contains("live threads"));
+        }
+
+        @Test
+        @DisplayName("fail the test when the run grows beyond a threshold and leaks fail tests")
+        void leaks_fail_tests() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(this::leakingApplication)
+                    .leakCheck(new LeakCheck().threads(1).settleTime(Duration.ofMillis(100)).failOnLeak())
+                    .build();
+            runContainer(jerseyExtension);
+            AssertionError error = assertThrows(AssertionError.class, () -> runContainer(jerseyExtension));
+            assertTrue(error.getMessage().contains("live threads"));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with gzip compression and payload sizes")
+    class GzipApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class, StreamingResource.class))
+                .gzip()
+                .payloadSizes()
+                .build();
+
+        @Test
+        @DisplayName("compress request entities on the wire")
+        void requests_are_compressed(WebTarget target, PayloadSizes payloadSizes) {
+            byte[] entity = new byte[64 * 1024];
+            Arrays.fill(entity, (byte) 'a');
+            String result = target.path("stream").request()
+                    .post(Entity.entity(entity, MediaType.APPLICATION_OCTET_STREAM), String.class);
+            assertTrue(result.startsWith(entity.length + " "));
+            assertEquals(entity.length, payloadSizes.getRequestBytes());
+            assertTrue(payloadSizes.getEncodedRequestBytes() < entity.length / 10, payloadSizes.toString());
+        }
+
+        @Test
+        @DisplayName("accept compressed response entities")
+        void responses_are_compressed(WebTarget target, PayloadSizes payloadSizes) {
+            Response response = target.path("values").request().get();
+            assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(DummyResource.DEFAULT_VALUES, response.readEntity(String.class));
+            assertEquals(DummyResource.DEFAULT_VALUES.length(), payloadSizes.getResponseBytes());
+            assertNotEquals(payloadSizes.getResponseBytes(), payloadSizes.getEncodedResponseBytes());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered and a LoadDriver is injected")
+    class LoadDriverApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = new JerseyExtension(() -> new ResourceConfig(DummyResource.class));
+
+        @Test
+        @DisplayName("send concurrent requests and record their latencies")
+        void load_is_driven_concurrently(LoadDriver loadDriver) throws InterruptedException {
+            LoadResult result = loadDriver.path("values").requests(200).concurrency(8).get();
+            assertEquals(200, result.getRequests());
+            assertEquals(0, result.getErrors());
+            assertEquals(Integer.valueOf(200), result.getStatusCounts().get(200));
+            assertEquals(200, result.getLatencies().getCount());
+            assertEquals(200, result.getLatencies().getBuckets().values().stream().mapToInt(Integer::intValue).sum());
+            assertTrue(result.getLatencies().getPercentile(50).compareTo(result.getLatencies().getMax()) <= 0);
+            assertTrue(result.getThroughput() > 0);
+        }
+
+        @Test
+        @DisplayName("count failed requests as errors")
+        void failed_requests_are_counted(LoadDriver loadDriver) throws InterruptedException {
+            LoadResult result = loadDriver.path("missing").requests(10).concurrency(2).virtualThreads().get();
+            assertEquals(10, result.getErrors());
+            assertEquals(Integer.valueOf(10), result.getStatusCounts().get(404));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with an async executor and AsyncRequests is injected")
+    class AsyncRequestsApp {
+
+        private final AtomicInteger asyncThreads = new AtomicInteger();
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .asyncExecutor(() -> Executors.newFixedThreadPool(8, runnable -> {
+                    asyncThreads.incrementAndGet();
+                    return new Thread(runnable, "async-requests-test");
+                }))
+                .build();
+
+        @Test
+        @DisplayName("send many requests at once from the test thread")
+        void requests_are_pipelined(AsyncRequests asyncRequests) throws Exception {
+            List<CompletionStage<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                responses.add(asyncRequests.get("values", String.class));
+            }
+            List<String> values = AsyncRequests.allOf(responses).toCompletableFuture().get(30, TimeUnit.SECONDS);
+            assertEquals(200, values.size());
+            values.forEach(value -> assertEquals(DummyResource.DEFAULT_VALUES, value));
+            assertTrue(asyncThreads.get() > 0);
+        }
+
+        @Test
+        @DisplayName("send reactive requests on the configured executor")
+        void reactive_requests_use_the_executor(AsyncRequests asyncRequests) throws Exception {
+            String thread = asyncRequests.rx("values").get()
+                    .thenApply(response -> {
+                        response.close();
+                        return Thread.currentThread().getName();
+                    })
+                    .toCompletableFuture().get(30, TimeUnit.SECONDS);
+            assertEquals("async-requests-test", thread);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered to start the container lazily")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class LazyStartApp {
+
+        private int deployments;
+        private int expectedDeployments;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(this::configureJersey)
+                .lazyStart()
+                .build();
+
+        private Application configureJersey() {
+            deployments++;
+            return new ResourceConfig(DummyResource.class);
+        }
+
+        @Test
+        @DisplayName("not start a container for a test that does not need one")
+        void container_is_not_started() {
+            assertEquals(expectedDeployments, deployments);
+        }
+
+        @Test
+        @DisplayName("start a container when a parameter is injected")
+        void container_is_started_for_parameters(WebTarget target) {
+            expectedDeployments++;
+            assertEquals(expectedDeployments, deployments);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @RequiresContainer
+        @DisplayName("start a container for a test annotated to require one")
+        void container_is_started_when_required() {
+            expectedDeployments++;
+            assertEquals(expectedDeployments, deployments);
+        }
+
+        @Test
+        @DisplayName("not start a container for a parameter injected outside a test method")
+        void container_is_not_started_for_class_parameters() throws NoSuchMethodException {
+            Parameter parameter = getClass().getDeclaredMethod("container_is_started_for_parameters", WebTarget.class).getParameters()[0];
+            ParameterContext parameterContext = new ParameterContext() {
+
+                @Override
+                public Parameter getParameter() {
+                    return parameter;
+                }
+
+                @Override
+                public int getIndex() {
+                    return 0;
+                }
+
+                @Override
+                public Optional<Object> getTarget() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public boolean isAnnotated(Class<? extends Annotation> annotationType) {
+                    return false;
+                }
+
+                @Override
+                public <A extends Annotation> Optional<A> findAnnotation(Class<A> annotationType) {
+                    return Optional.empty();
+                }
+
+                @Override
+                public <A extends Annotation> List<A> findRepeatableAnnotations(Class<A> annotationType) {
+                    return new ArrayList<>();
+                }
+            };
+            ExtensionContext classContext = new DummyExtensionContext();
+            assertThrows(ParameterResolutionException.class, () -> jerseyExtension.resolveParameter(parameterContext, classContext));
+            assertEquals(expectedDeployments, deployments);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with timings")
+    class TimingsApp {
+
+        @TempDir
+        Path tempDir;
+
+        private final Map<String, String> reportEntries = new HashMap<>();
+        private final ExtensionContext extensionContext = new DummyExtensionContext(TimingsApp.class) {
+
+            @Override
+            public String getUniqueId() {
+                return "timed test";
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "timed test";
+            }
+
+            @Override
+            public void publishReportEntry(Map<String, String> map) {
+                reportEntries.putAll(map);
+            }
+        };
+
+        @Test
+        @DisplayName("publish the container and request timings of each test")
+        void timings_are_published() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .timings()
+                    .build();
+            jerseyExtension.beforeEach(extensionContext);
+            WebTarget target = jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+            jerseyExtension.afterEach(extensionContext);
+
+            assertEquals("3", reportEntries.get("jersey.requests"));
+            assertNotNull(reportEntries.get("jersey.container.start.ms"));
+            assertNotNull(reportEntries.get("jersey.container.stop.ms"));
+            assertTrue(reportEntries.get("jersey.requests.slowest").startsWith("GET /values "));
+        }
+
+        @Test
+        @DisplayName("publish the start time of a shared container started before the first test")
+        void shared_container_start_is_published() throws Exception {
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .scope(ContainerScope.CLASS)
+                    .timings()
+                    .build();
+            jerseyExtension.beforeAll(extensionContext);
+            try {
+                jerseyExtension.beforeEach(extensionContext);
+                jerseyExtension.afterEach(extensionContext);
+                assertNotNull(reportEntries.remove("jersey.container.start.ms"));
+
+                jerseyExtension.beforeEach(extensionContext);
+                jerseyExtension.afterEach(extensionContext);
+                assertNull(reportEntries.get("jersey.container.start.ms"));
+            } finally {
+                jerseyExtension.afterAll(extensionContext);
+            }
+        }
+
+        @Test
+        @DisplayName("write the timings of every test to a summary file")
+        void timings_are_written_to_a_summary() throws Exception {
+            Path report = tempDir.resolve("timings.csv");
+            JerseyExtension jerseyExtension = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .timings(report)
+                    .build();
+            jerseyExtension.beforeEach(extensionContext);
+            jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class).path("values").request().get(String.class);
+            jerseyExtension.afterEach(extensionContext);
+            TimingReport.get(extensionContext, report).close();
+
+            List<String> lines = Files.readAllLines(report);
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(1).startsWith("test," + TimingsApp.class.getName() + " timed test,1,"));
+            assertTrue(lines.get(2).startsWith("request,GET /values,1,"));
+        }
+
+        @Test
+        @DisplayName("write the summary as JSON when the file name ends with .json")
+        void timings_are_written_as_json() throws Exception {
+            Path report = tempDir.resolve("timings.json");
+            TestTimings timings = new TestTimings("a \"quoted\" test");
+            timings.recordRequest("GET /values", 2_000_000);
+            TimingReport timingReport = TimingReport.get(extensionContext, report);
+            timingReport.add(timings);
+            timingReport.close();
+
+            String json = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+            assertTrue(json.contains("{\"name\": \"a \\\"quoted\\\" test\", \"requests\": 1, \"requestTotalMs\": 2.000"));
+            assertTrue(json.contains("{\"request\": \"GET /values\", \"count\": 1, \"totalMs\": 2.000, \"maxMs\": 2.000}"));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with an in-memory container")
+    class InMemoryApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .inMemory()
+                .build();
+
+        @Test
+        @DisplayName("access the resource using the injected WebTarget")
+        void web_target_is_injected(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @DisplayName("call the application without a socket")
+        void client_uses_the_in_memory_connector(Client client, URI baseUri) {
+            ConnectorProvider connectorProvider = ((ClientConfig) client.getConfiguration()).getConnectorProvider();
+            assertEquals("org.glassfish.jersey.test.inmemory.InMemoryConnector$Provider", connectorProvider.getClass().getName());
+            assertEquals(DummyResource.DEFAULT_VALUES, client.target(baseUri).path("values").request().get(String.class));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when a test compares containers")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class ComparedContainersApp {
+
+        private final List<String> connectorProviders = new ArrayList<>();
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .scope(ContainerScope.SUITE)
+                .build();
+
+        @CompareContainers({GrizzlyTestContainerFactory.class, InMemoryTestContainerFactory.class})
+        @DisplayName("run the test in a container started by each factory")
+        void test_is_run_in_each_container(Client client, WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            ConnectorProvider connectorProvider = ((ClientConfig) client.getConfiguration()).getConnectorProvider();
+            connectorProviders.add(connectorProvider.getClass().getName());
+            boolean inMemory = connectorProviders.size() == 2;
+            assertEquals(inMemory, connectorProvider.getClass().getName().startsWith("org.glassfish.jersey.test.inmemory"));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a class scoped container restoring state")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class RestoredStateApp {
+
+        private final AtomicInteger boundCount = new AtomicInteger();
+        private final Resettable<Integer> boundCounter = new Resettable<Integer>() {
+
+            @Override
+            public Integer snapshot() {
+                return boundCount.get();
+            }
+
+            @Override
+            public void restore(Integer snapshot) {
+                boundCount.set(snapshot);
+            }
+        };
+        private URI firstBaseUri;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig()
+                        .register(new CounterResource())
+                        .register(new AbstractBinder() {
+
+                            @Override
+                            protected void configure() {
+                                bind(boundCounter).to(Resettable.class);
+                            }
+                        }))
+                .scope(ContainerScope.CLASS)
+                .restoreState()
+                .build();
+
+        private void assertStateIsRestored(WebTarget target, URI baseUri) {
+            if (firstBaseUri == null) {
+                firstBaseUri = baseUri;
+            }
+            assertEquals(firstBaseUri, baseUri);
+            assertEquals("1", target.path("counter").request().post(null, String.class));
+            assertEquals(0, boundCount.getAndIncrement());
+        }
+
+        @Test
+        @DisplayName("restore registered singletons and bound services before a test")
+        void state_is_restored(WebTarget target, URI baseUri) {
+            assertStateIsRestored(target, baseUri);
+        }
+
+        @Test
+        @DisplayName("restore registered singletons and bound services before another test")
+        void state_is_restored_again(WebTarget target, URI baseUri) {
+            assertStateIsRestored(target, baseUri);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a class scoped in-memory container restoring state")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class InMemoryRestoredStateApp {
+
+        private final AtomicInteger boundCount = new AtomicInteger();
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig()
+                        .register(new CounterResource())
+                        .register(new AbstractBinder() {
+
+                            @Override
+                            protected void configure() {
+                                bind(new Resettable<Integer>() {
+
+                                    @Override
+                                    public Integer snapshot() {
+                                        return boundCount.get();
+                                    }
+
+                                    @Override
+                                    public void restore(Integer snapshot) {
+                                        boundCount.set(snapshot);
+                                    }
+                                }).to(Resettable.class);
+                            }
+                        }))
+                .inMemory()
+                .scope(ContainerScope.CLASS)
+                .restoreState()
+                .build();
+
+        @Test
+        @DisplayName("restore registered singletons and bound services before a test")
+        void state_is_restored(WebTarget target) {
+            assertEquals("1", target.path("counter").request().post(null, String.class));
+            assertEquals(0, boundCount.getAndIncrement());
+        }
+
+        @Test
+        @DisplayName("restore registered singletons and bound services before another test")
+        void state_is_restored_again(WebTarget target) {
+            assertEquals("1", target.path("counter").request().post(null, String.class));
+            assertEquals(0, boundCount.getAndIncrement());
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a pooled client")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class PooledClientApp {
+
+        private Client firstClient;
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .pooledClient(10, 5)
+                .build();
+
+        @Test
+        @DisplayName("send requests over pooled keep-alive connections")
+        void client_uses_pooled_connections(Client client, WebTarget target) {
+            assertClientIsShared(client);
+            assertTrue(((ClientConfig) client.getConfiguration()).getConnectorProvider() instanceof ApacheConnectorProvider);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            }
+        }
+
+        @Test
+        @DisplayName("reuse the client for another test with a new container")
+        void client_is_reused(Client client, URI baseUri) {
+            assertClientIsShared(client);
+            assertEquals(DummyResource.DEFAULT_VALUES, client.target(baseUri).path("values").request().get(String.class));
+        }
+
+        private void assertClientIsShared(Client client) {
+            if (firstClient == null) {
+                firstClient = client;
+            }
+            assertSame(firstClient, client);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with a pooled client and an in-memory container")
+    class PooledClientInMemoryApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .inMemory()
+                .pooledClient()
+                .build();
+
+        @Test
+        @DisplayName("keep the in-memory connector")
+        void in_memory_connector_is_kept(Client client, WebTarget target) {
+            assertFalse(((ClientConfig) client.getConfiguration()).getConnectorProvider() instanceof ApacheConnectorProvider);
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with prestarted containers")
+    class PrestartedContainersApp {
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> new ResourceConfig(DummyResource.class))
+                .prestartedContainers(2)
+                .build();
+
+        @Test
+        @DisplayName("access the resource using the injected WebTarget")
+        void web_target_is_injected(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+        }
+
+        @Test
+        @DisplayName("start containers on background threads")
+        void containers_are_started_in_the_background(Client client, URI baseUri) {
+            assertEquals(DummyResource.DEFAULT_VALUES, client.target(baseUri).path("values").request().get(String.class));
+            assertTrue(Thread.getAllStackTraces().keySet().stream()
+                    .anyMatch(thread -> thread.getName().startsWith("jersey-junit-prestart-")));
+        }
+
+        @Test
+        @DisplayName("only be allowed for containers that are not shared")
+        void only_allowed_for_test_scope() {
+            JerseyExtension.Builder builder = JerseyExtension.builder()
+                    .application(() -> new ResourceConfig(DummyResource.class))
+                    .scope(ContainerScope.CLASS)
+                    .prestartedContainers(2);
+            assertThrows(IllegalStateException.class, builder::build);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when registered with more prestarted containers than tests")
+    @TestInstance(Lifecycle.PER_CLASS)
+    class PrestartedContainersFewTestsApp {
+
+        private final AtomicInteger startedContainers = new AtomicInteger();
+
+        @RegisterExtension
+        JerseyExtension jerseyExtension = JerseyExtension.builder()
+                .application(() -> {
+                    startedContainers.incrementAndGet();
+                    return new ResourceConfig(DummyResource.class);
+                })
+                .prestartedContainers(4)
+                .build();
+
+        @Test
+        @DisplayName("start no more containers than the class has tests")
+        void containers_are_started_for_each_test(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            assertTrue(startedContainers.get() <= 2);
+        }
+
+        @Test
+        @DisplayName("start no more containers than the class has tests for another test")
+        void containers_are_started_for_another_test(WebTarget target) {
+            assertEquals(DummyResource.DEFAULT_VALUES, target.path("values").request().get(String.class));
+            assertTrue(startedContainers.get() <= 2);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("when two extensions are registered")
+    class TwoExtensions {
+
+        private final JerseyExtension firstExtension = new JerseyExtension(() -> new ResourceConfig().register(new DummyResource("first")));
+        private final JerseyExtension secondExtension = new JerseyExtension(() -> new ResourceConfig().register(new DummyResource("second")));
+        private final ExtensionContext extensionContext = new DummyExtensionContext();
+
+        @Test
+        @DisplayName("keep their containers in separate stores")
+        void stores_are_isolated() throws Exception {
+            firstExtension.beforeEach(extensionContext);
+            secondExtension.beforeEach(extensionContext);
+            try {
+                WebTarget first = firstExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+                WebTarget second = secondExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+                assertEquals("first", first.path("values").request().get(String.class));
+                assertEquals("second", second.path("values").request().get(String.class));
+            } finally {
+                firstExtension.afterEach(extensionContext);
+            }
+            assertNull(firstExtension.getStore(extensionContext).get(JerseyTest.class));
+            assertNotNull(secondExtension.getStore(extensionContext).get(JerseyTest.class));
+            secondExtension.afterEach(extensionContext);
+        }
+
+    }
+
     @Nested
     @DisplayName("when beforeEach is called")
     @TestInstance(Lifecycle.PER_CLASS)
@@ -259,37 +1765,37 @@ class JerseyExtensionTest {
         @Test
         @DisplayName("create the JerseyTest and add it to the store")
         void jersey_test_is_added_to_the_store() {
-            JerseyTest jerseyTest = JerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
+            JerseyTest jerseyTest = jerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
             assertNotNull(jerseyTest);
         }
 
         @Test
         @DisplayName("create the Client and add it to the store")
         void client_is_added_to_the_store() {
-            Client client = JerseyExtension.getStore(extensionContext).get(Client.class, Client.class);
+            Client client = jerseyExtension.getStore(extensionContext).get(Client.class, Client.class);
             assertNotNull(client);
 
-            JerseyTest jerseyTest = JerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
+            JerseyTest jerseyTest = jerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
             assertTrue(client == jerseyTest.client());
         }
 
         @Test
         @DisplayName("create the WebTarget and add it to the store")
         void web_target_is_added_to_the_store() {
-            WebTarget webTarget = JerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+            WebTarget webTarget = jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
             assertNotNull(webTarget);
 
-            JerseyTest jerseyTest = JerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
+            JerseyTest jerseyTest = jerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
             assertEquals(webTarget.getUri(), jerseyTest.target().getUri());
         }
 
         @Test
         @DisplayName("create the URI and add it to the store")
         void uri_is_added_to_the_store() {
-            URI baseUri = JerseyExtension.getStore(extensionContext).get(URI.class, URI.class);
+            URI baseUri = jerseyExtension.getStore(extensionContext).get(URI.class, URI.class);
             assertNotNull(baseUri);
 
-            WebTarget webTarget = JerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+            WebTarget webTarget = jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
             assertEquals(baseUri, webTarget.getUri());
         }
 
@@ -306,28 +1812,28 @@ class JerseyExtensionTest {
             @Test
             @DisplayName("the JerseyTest has been removed from the store")
             void jersey_test_is_added_to_the_store() {
-                JerseyTest jerseyTest = JerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
+                JerseyTest jerseyTest = jerseyExtension.getStore(extensionContext).get(JerseyTest.class, JerseyTest.class);
                 assertNull(jerseyTest);
             }
 
             @Test
             @DisplayName("the Client has been removed from the store")
             void client_is_added_to_the_store() {
-                Client client = JerseyExtension.getStore(extensionContext).get(Client.class, Client.class);
+                Client client = jerseyExtension.getStore(extensionContext).get(Client.class, Client.class);
                 assertNull(client);
             }
 
             @Test
             @DisplayName("the WebTarget has been removed from the store")
             void web_target_is_added_to_the_store() {
-                WebTarget webTarget = JerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
+                WebTarget webTarget = jerseyExtension.getStore(extensionContext).get(WebTarget.class, WebTarget.class);
                 assertNull(webTarget);
             }
 
             @Test
             @DisplayName("the URI has been removed from the store")
             void uri_is_added_to_the_store() {
-                URI baseUri = JerseyExtension.getStore(extensionContext).get(URI.class, URI.class);
+                URI baseUri = jerseyExtension.getStore(extensionContext).get(URI.class, URI.class);
                 assertNull(baseUri);
             }
 
@@ -0,0 +1,41 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+
+@Path("/stream")
+public class StreamingResource {
+
+    @POST
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @Produces(MediaType.TEXT_PLAIN)
+    public String upload(InputStream body, @HeaderParam("Transfer-Encoding") String transferEncoding) throws IOException {
+        TransferResult result = StreamingRequests.consume(body);
+        return result.getBytes() + " " + result.getChecksum() + " " + transferEncoding;
+    }
+
+    @GET
+    @Path("/{size}")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public StreamingOutput download(@PathParam("size") long size) {
+        return output -> {
+            byte[] chunk = new byte[8192];
+            try (InputStream in = StreamingRequests.generate(size)) {
+                for (int read = in.read(chunk); read != -1; read = in.read(chunk)) {
+                    output.write(chunk, 0, read);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.github.hanleyt;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Path("/thread")
+public class ThreadResource {
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String get() {
+        return Thread.currentThread().toString();
+    }
+
+}